@@ -0,0 +1,61 @@
+package claude;
+
+import java.time.LocalDate;
+
+/**
+ * Builds task lists of a given size and mix of task types for the benchmarks.
+ * Tasks are generated deterministically, so every run measures the same data.
+ */
+final class BenchmarkTasks {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 1);
+    private static final String[] WORDS = {"report", "review", "book", "meeting", "lab",
+        "project", "email", "groceries", "tutorial", "slides", "budget", "plan"};
+
+    private BenchmarkTasks() {
+    }
+
+    /**
+     * Creates a list of tasks.
+     *
+     * @param size The number of tasks.
+     * @param mix "todo", "deadline" or "event" for a single type, or "mixed" for an even mix.
+     * @return The new task list.
+     */
+    static TaskList create(int size, String mix) {
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < size; i++) {
+            tasks.add(createTask(i, mix));
+        }
+        return tasks;
+    }
+
+    /**
+     * Creates the i-th task of a list with the given mix.
+     * Every fourth task is done, and dates are spread over two years.
+     *
+     * @param i The position of the task.
+     * @param mix The mix of task types.
+     * @return The new task.
+     */
+    static Task createTask(int i, String mix) {
+        String description = WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length]
+                + " task " + i;
+        LocalDate day = FIRST_DAY.plusDays(i % 730);
+        Task task;
+        switch (mix.equals("mixed") ? i % 3 : mix.equals("todo") ? 0 : mix.equals("deadline") ? 1 : 2) {
+        case 0:
+            task = new Todo(description);
+            break;
+        case 1:
+            task = new Deadline(description, day.toString());
+            break;
+        default:
+            task = new Event(description, day.toString(), day.plusDays(i % 5).toString());
+            break;
+        }
+        if (i % 4 == 3) {
+            task.markAsDone();
+        }
+        return task;
+    }
+}
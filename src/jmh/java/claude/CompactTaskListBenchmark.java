@@ -0,0 +1,89 @@
+package claude;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares a task list in compact mode with one holding task objects.
+ * The heap the list takes per task is measured once per trial and printed before the iterations;
+ * the benchmarks show what building task views out of the columns costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CompactTaskListBenchmark {
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean isCompact;
+
+    private TaskList tasks;
+
+    /**
+     * Builds the task list, printing the heap it takes per task.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        long before = usedHeap();
+        tasks = BenchmarkTasks.create(size, "mixed");
+        tasks.setCompact(isCompact);
+        long after = usedHeap();
+        System.out.printf("%n%s TaskList: %.1f bytes per task%n", isCompact ? "Compact" : "Plain",
+                (after - before) / (double) size);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Reads a random task.
+     *
+     * @return The task.
+     */
+    @Benchmark
+    public Task get() {
+        return tasks.get(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    /**
+     * Counts the done tasks, which compact mode reads from the done column alone.
+     *
+     * @return The count.
+     */
+    @Benchmark
+    public int countDone() {
+        return tasks.count(StatusFilter.DONE);
+    }
+
+    /**
+     * Finds a rare keyword, which compact mode answers with a scan instead of the keyword index.
+     *
+     * @return The number of matches.
+     */
+    @Benchmark
+    public int findRare() {
+        return tasks.find("task 4242").size();
+    }
+}
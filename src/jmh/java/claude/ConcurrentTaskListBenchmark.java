@@ -0,0 +1,117 @@
+package claude;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Stresses one ConcurrentTaskList shared by all benchmark threads, next to a plain TaskList
+ * behind a global lock. Run it with different thread counts, for example
+ * {@code -PjmhInclude=ConcurrentTaskList -PjmhThreads=8}, to see how reads scale across cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConcurrentTaskListBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private ConcurrentTaskList tasks;
+    private TaskList lockedTasks;
+
+    /**
+     * Builds both task lists and warms up the keyword index.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        lockedTasks = BenchmarkTasks.create(size, "mixed");
+        tasks = new ConcurrentTaskList(lockedTasks.getTasks());
+        tasks.find("task");
+    }
+
+    /**
+     * Reads a random task without locking.
+     *
+     * @return The task.
+     */
+    @Benchmark
+    public Task get() {
+        return tasks.get(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    /**
+     * Reads a random task from the plain list under a global lock, as callers had to before.
+     *
+     * @return The task.
+     */
+    @Benchmark
+    public Task getLocked() {
+        int index = ThreadLocalRandom.current().nextInt(size);
+        synchronized (lockedTasks) {
+            return lockedTasks.get(index);
+        }
+    }
+
+    /**
+     * Finds a keyword under the shared read lock.
+     *
+     * @return The matches.
+     */
+    @Benchmark
+    public TaskList find() {
+        return tasks.find("task 4242");
+    }
+
+    /**
+     * Marks and unmarks a random task, racing the other threads for it.
+     *
+     * @return Whether this thread changed the task.
+     */
+    @Benchmark
+    public boolean markAndUnmark() {
+        Task task = tasks.get(ThreadLocalRandom.current().nextInt(size));
+        return task.markAsDone() | task.markAsNotDone();
+    }
+
+    /**
+     * Reads random tasks while another thread keeps changing the list.
+     *
+     * @return The task.
+     */
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(3)
+    public Task reader() {
+        return tasks.get(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    /**
+     * Adds a task and deletes it again, so the list keeps its size.
+     *
+     * @return The deleted task.
+     */
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(1)
+    public Task writer() {
+        tasks.add(new Todo("benchmark task"));
+        return tasks.delete(size);
+    }
+}
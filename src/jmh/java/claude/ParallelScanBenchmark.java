@@ -0,0 +1,86 @@
+package claude;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures scans no index can answer, on one thread and split across the common fork/join pool.
+ * The default threshold runs the large lists in parallel, while the largest int keeps every scan
+ * on one thread; compare the two to see the speed-up on the machine at hand.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParallelScanBenchmark {
+    @Param({"100000", "2000000"})
+    private int size;
+
+    @Param({"32768", "2147483647"})
+    private int parallelThreshold;
+
+    private TaskList tasks;
+    private TaskQuery statusQuery;
+    private FindQuery broadQuery;
+
+    /**
+     * Builds the task list and the queries, and warms up the keyword index.
+     *
+     * @throws ClaudeException If a find query is invalid.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws ClaudeException {
+        tasks = BenchmarkTasks.create(size, "mixed");
+        tasks.setParallelThreshold(parallelThreshold);
+        tasks.find("task");
+        statusQuery = new TaskQuery();
+        statusQuery.requireDone(true);
+        statusQuery.requireType(Todo.class);
+        broadQuery = FindQuery.parse("groceries report --any --fuzzy");
+    }
+
+    /**
+     * Filters on a substring of the description.
+     *
+     * @return The matches.
+     */
+    @Benchmark
+    public ArrayList<Task> filter() {
+        return tasks.filter(task -> task.getDescription().contains("4242"));
+    }
+
+    /**
+     * Runs a query on status and type, which has no index to use.
+     *
+     * @return The matches.
+     */
+    @Benchmark
+    public TaskList queryScan() {
+        return statusQuery.run(tasks);
+    }
+
+    /**
+     * Runs a fuzzy find broad enough to score every task.
+     *
+     * @return The ranked matches.
+     */
+    @Benchmark
+    public ArrayList<Task> broadSearch() {
+        return tasks.search(broadQuery);
+    }
+}
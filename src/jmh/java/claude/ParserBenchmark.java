@@ -0,0 +1,134 @@
+package claude;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how many commands per second Parser can parse and execute against an in-memory list.
+ * Persistence is deferred so the numbers reflect parsing and list operations only.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParserBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"mixed", "todo", "deadline", "event"})
+    private String mix;
+
+    private TaskList tasks;
+    private Ui ui;
+    private Storage storage;
+    private String deleteLast;
+
+    /**
+     * Builds the task list and a UI and storage that discard their output.
+     *
+     * @throws IOException If the temporary data file cannot be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        tasks = BenchmarkTasks.create(size, mix);
+        ui = new Ui(InputStream.nullInputStream(), new PrintStream(OutputStream.nullOutputStream()));
+        storage = new Storage(Files.createTempFile("claude-bench", ".txt").toString());
+        storage.setDeferred(true);
+        deleteLast = "delete " + (size + 1);
+    }
+
+    /**
+     * Adds a todo and deletes it again, keeping the list size constant.
+     *
+     * @throws ClaudeException If a command fails.
+     */
+    @Benchmark
+    public void addAndDeleteTodo() throws ClaudeException {
+        Parser.parseAndExecute("todo write benchmark report", tasks, ui, storage);
+        Parser.parseAndExecute(deleteLast, tasks, ui, storage);
+    }
+
+    /**
+     * Adds a deadline with an ISO date and deletes it again.
+     *
+     * @throws ClaudeException If a command fails.
+     */
+    @Benchmark
+    public void addAndDeleteDeadline() throws ClaudeException {
+        Parser.parseAndExecute("deadline submit benchmark report /by 2025-03-14", tasks, ui, storage);
+        Parser.parseAndExecute(deleteLast, tasks, ui, storage);
+    }
+
+    /**
+     * Adds an event with ISO dates and deletes it again.
+     *
+     * @throws ClaudeException If a command fails.
+     */
+    @Benchmark
+    public void addAndDeleteEvent() throws ClaudeException {
+        Parser.parseAndExecute("event benchmark review /from 2025-03-14 /to 2025-03-15", tasks, ui, storage);
+        Parser.parseAndExecute(deleteLast, tasks, ui, storage);
+    }
+
+    /**
+     * Marks the first task as done and back.
+     *
+     * @throws ClaudeException If a command fails.
+     */
+    @Benchmark
+    public void markAndUnmark() throws ClaudeException {
+        Parser.parseAndExecute("mark 1", tasks, ui, storage);
+        Parser.parseAndExecute("unmark 1", tasks, ui, storage);
+    }
+
+    /**
+     * Runs a selective find command.
+     *
+     * @throws ClaudeException If the command fails.
+     */
+    @Benchmark
+    public void find() throws ClaudeException {
+        Parser.parseAndExecute("find task 4242", tasks, ui, storage);
+    }
+
+    /**
+     * Runs a due command for a single day.
+     *
+     * @throws ClaudeException If the command fails.
+     */
+    @Benchmark
+    public void due() throws ClaudeException {
+        Parser.parseAndExecute("due 2025-03-14", tasks, ui, storage);
+    }
+
+    /**
+     * Runs a command that is rejected, measuring the error path.
+     */
+    @Benchmark
+    public void invalidCommand() {
+        try {
+            Parser.parseAndExecute("deadline missing its date", tasks, ui, storage);
+        } catch (ClaudeException e) {
+            // Expected
+        }
+    }
+}
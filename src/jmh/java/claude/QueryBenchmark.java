@@ -0,0 +1,165 @@
+package claude;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures query throughput on TaskList for selective and broad find, due and events queries.
+ * Indexes are built during setup, so the numbers reflect steady-state lookups.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class QueryBenchmark {
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 14);
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"mixed", "todo", "deadline", "event"})
+    private String mix;
+
+    private TaskList tasks;
+    private FindQuery ignoreCaseQuery;
+    private FindQuery fuzzyQuery;
+    private FindQuery anyQuery;
+    private TaskQuery reportQuery;
+
+    /**
+     * Builds the task list and warms up its indexes.
+     *
+     * @throws ClaudeException If a find query is invalid.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws ClaudeException {
+        ignoreCaseQuery = FindQuery.parse("GROCERIES --ignore-case");
+        fuzzyQuery = FindQuery.parse("grocreies --fuzzy=2 --limit 10");
+        anyQuery = FindQuery.parse("groceries report --any --limit 10");
+        reportQuery = new TaskQuery();
+        reportQuery.requireType(Deadline.class);
+        reportQuery.requireDone(false);
+        reportQuery.requireDates(TaskQuery.Kind.DUE, LocalDate.MIN, DAY);
+        reportQuery.requireText("report");
+        tasks = BenchmarkTasks.create(size, mix);
+        tasks.find("task");
+        tasks.findDue(DAY, DAY, true);
+    }
+
+    /**
+     * Finds a keyword matching a single task.
+     *
+     * @return The matches.
+     */
+    @Benchmark
+    public TaskList findSelective() {
+        return tasks.find("task 4242");
+    }
+
+    /**
+     * Finds a keyword matching about one task in twelve.
+     *
+     * @return The matches.
+     */
+    @Benchmark
+    public TaskList findBroad() {
+        return tasks.find("groceries");
+    }
+
+    /**
+     * Finds a keyword in any case, matching about one task in twelve.
+     *
+     * @return The ranked matches.
+     */
+    @Benchmark
+    public List<Task> searchIgnoreCase() {
+        return tasks.search(ignoreCaseQuery);
+    }
+
+    /**
+     * Finds a keyword with two typos in it, keeping the ten best matches.
+     *
+     * @return The ranked matches.
+     */
+    @Benchmark
+    public List<Task> searchFuzzy() {
+        return tasks.search(fuzzyQuery);
+    }
+
+    /**
+     * Finds tasks matching either of two keywords, keeping the ten best matches.
+     *
+     * @return The ranked matches.
+     */
+    @Benchmark
+    public List<Task> searchAny() {
+        return tasks.search(anyQuery);
+    }
+
+    /**
+     * Runs a query combining type, status, due date and text, as {@code query type:D done:no
+     * due<=2025-03-14 text:report} does.
+     *
+     * @return The matches.
+     */
+    @Benchmark
+    public TaskList query() {
+        return reportQuery.run(tasks);
+    }
+
+    /**
+     * Finds a keyword inside terms rather than a whole term.
+     *
+     * @return The matches.
+     */
+    @Benchmark
+    public TaskList findSubstring() {
+        return tasks.find("udge");
+    }
+
+    /**
+     * Lists deadlines due on a single day.
+     *
+     * @return The matches.
+     */
+    @Benchmark
+    public TaskList dueDay() {
+        return tasks.findDue(DAY, DAY);
+    }
+
+    /**
+     * Lists deadlines due in a month.
+     *
+     * @return The matches.
+     */
+    @Benchmark
+    public TaskList dueMonth() {
+        return tasks.findDue(DAY.withDayOfMonth(1), DAY.withDayOfMonth(31));
+    }
+
+    /**
+     * Lists events overlapping a week.
+     *
+     * @return The matches.
+     */
+    @Benchmark
+    public TaskList eventsWeek() {
+        return tasks.findEvents(DAY, DAY.plusDays(6));
+    }
+}
@@ -0,0 +1,75 @@
+package claude;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures rendering a whole list for display, as the list command does.
+ * Run it with {@code -prof gc} to see the bytes allocated per rendered list.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RenderBenchmark {
+    @Param({"1000"})
+    private int size;
+
+    @Param({"mixed", "todo", "deadline", "event"})
+    private String mix;
+
+    private TaskList tasks;
+    private StringBuilder buffer;
+
+    /**
+     * Builds the task list and the output buffer.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        tasks = BenchmarkTasks.create(size, mix);
+        buffer = new StringBuilder();
+    }
+
+    /**
+     * Appends every task into a reused buffer.
+     *
+     * @return The length of the rendered list.
+     */
+    @Benchmark
+    public int appendTo() {
+        buffer.setLength(0);
+        for (Task task : tasks) {
+            task.appendTo(buffer);
+            buffer.append('\n');
+        }
+        return buffer.length();
+    }
+
+    /**
+     * Renders every task to its own string before appending it.
+     *
+     * @return The length of the rendered list.
+     */
+    @Benchmark
+    public int viaToString() {
+        buffer.setLength(0);
+        for (Task task : tasks) {
+            buffer.append(task.toString()).append('\n');
+        }
+        return buffer.length();
+    }
+}
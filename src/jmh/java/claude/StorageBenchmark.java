@@ -0,0 +1,93 @@
+package claude;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long saving and loading a whole task list takes in each file format.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StorageBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"mixed", "todo", "deadline", "event"})
+    private String mix;
+
+    @Param({"TEXT", "BINARY"})
+    private SnapshotFormat format;
+
+    private Path directory;
+    private TaskList tasks;
+    private Storage storage;
+
+    /**
+     * Builds the task list and writes it once so there is a file to load.
+     *
+     * @throws IOException If the temporary directory cannot be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("claude-bench");
+        tasks = BenchmarkTasks.create(size, mix);
+        storage = new Storage(directory.resolve("claude.txt").toString());
+        storage.setFormat(format);
+        storage.save(tasks);
+    }
+
+    /**
+     * Deletes the files written by the benchmark.
+     *
+     * @throws IOException If a file cannot be deleted.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Writes the whole list to the data file.
+     */
+    @Benchmark
+    public void save() {
+        storage.save(tasks);
+    }
+
+    /**
+     * Reads the whole list back from the data file.
+     *
+     * @return The loaded tasks, so the work is not optimised away.
+     * @throws ClaudeException If the file turns out to be corrupted.
+     */
+    @Benchmark
+    public ArrayList<Task> load() throws ClaudeException {
+        return storage.load();
+    }
+}
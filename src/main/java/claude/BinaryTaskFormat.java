@@ -0,0 +1,217 @@
+package claude;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes the compact binary snapshot format.
+ * A file starts with a magic header and a version byte, followed by the task count, the next
+ * free task ID and one record per task: a type tag, a flags byte, the task ID, and
+ * length-prefixed UTF-8 strings.
+ * Files written before task IDs existed use version 1, which has no ID fields, and files
+ * written before the next free ID was kept use version 2, which lacks only that.
+ * Deadlines with a parseable date store it as an epoch day instead of a string.
+ */
+public class BinaryTaskFormat {
+    private static final byte[] MAGIC = {(byte) 0x89, 'C', 'L', 'D'};
+    private static final byte VERSION = 3;
+    private static final byte VERSION_WITHOUT_IDS = 1;
+    private static final byte TODO = 'T';
+    private static final byte DEADLINE = 'D';
+    private static final byte EVENT = 'E';
+    private static final int FLAG_DONE = 1;
+    private static final int FLAG_HAS_DATE = 2;
+    // A todo without an ID and with an empty description: type tag, flags and the description length
+    private static final int MIN_RECORD_SIZE = 6;
+
+    /**
+     * Returns whether the file at the given path starts with the binary format's magic header.
+     *
+     * @param path The path to the data file.
+     * @return true if the file is in the binary format, false otherwise.
+     * @throws IOException If the file cannot be read.
+     */
+    public static boolean isBinary(Path path) throws IOException {
+        byte[] header = new byte[MAGIC.length];
+        try (InputStream input = Files.newInputStream(path)) {
+            if (input.readNBytes(header, 0, header.length) < header.length) {
+                return false;
+            }
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes all tasks to the given stream in the binary format.
+     *
+     * @param tasks The tasks to write.
+     * @param output The stream to write to. It is flushed but not closed.
+     * @throws IOException If writing fails.
+     */
+    public static void write(TaskList tasks, OutputStream output) throws IOException {
+        DataOutputStream data = new DataOutputStream(output);
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        data.writeInt(tasks.size());
+        data.writeInt(tasks.getNextId());
+        for (Task task : tasks) {
+            writeTask(task, data);
+        }
+        data.flush();
+    }
+
+    private static void writeTask(Task task, DataOutputStream data) throws IOException {
+        int flags = task.isDone() ? FLAG_DONE : 0;
+        if (task instanceof Deadline) {
+            Deadline deadline = (Deadline) task;
+            if (deadline.getByDate() != null) {
+                flags |= FLAG_HAS_DATE;
+            }
+            data.writeByte(DEADLINE);
+            data.writeByte(flags);
+            data.writeInt(task.getId());
+            writeString(task.getDescription(), data);
+            if (deadline.getByDate() != null) {
+                data.writeInt((int) deadline.getByDate().toEpochDay());
+            } else {
+                writeString(deadline.getBy(), data);
+            }
+        } else if (task instanceof Event) {
+            Event event = (Event) task;
+            data.writeByte(EVENT);
+            data.writeByte(flags);
+            data.writeInt(task.getId());
+            writeString(task.getDescription(), data);
+            writeString(event.getFrom(), data);
+            writeString(event.getTo(), data);
+        } else {
+            data.writeByte(TODO);
+            data.writeByte(flags);
+            data.writeInt(task.getId());
+            writeString(task.getDescription(), data);
+        }
+    }
+
+    private static void writeString(String value, DataOutputStream data) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    /**
+     * Reads all tasks from a file in the binary format.
+     * If the file is cut short or a record is damaged, the tasks read so far are kept and
+     * every task the header promised but could not be read is counted as corrupted,
+     * up to as many as the rest of the file could hold.
+     *
+     * @param path The path to the data file.
+     * @return The parsed tasks together with the task count and the file checksum.
+     * @throws IOException If the file cannot be read.
+     */
+    public static TaskFileLoader.Result read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32 checksum = new CRC32();
+            checksum.update(buffer.duplicate());
+
+            ArrayList<Task> tasks = new ArrayList<>();
+            int count;
+            int nextId = 0;
+            byte version;
+            try {
+                buffer.position(MAGIC.length);
+                version = buffer.get();
+                if (version < VERSION_WITHOUT_IDS || version > VERSION) {
+                    throw new IOException("Unsupported binary format version " + version);
+                }
+                count = buffer.getInt();
+                if (version == VERSION) {
+                    nextId = buffer.getInt();
+                }
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Truncated binary header");
+            }
+            // The count is not trusted yet, so never reserve room for more records than the file can hold
+            tasks.ensureCapacity(Math.min(Math.max(0, count), buffer.remaining() / MIN_RECORD_SIZE));
+            byte[] scratch = new byte[256];
+            int recordEnd = buffer.position();
+            try {
+                for (int i = 0; i < count; i++) {
+                    tasks.add(readTask(buffer, scratch, version != VERSION_WITHOUT_IDS));
+                    recordEnd = buffer.position();
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException | ClaudeException e) {
+                // Keep what was read; the rest is reported as corrupted
+            }
+            int unreadCount = 0;
+            if (count != tasks.size()) {
+                // A damaged count can promise far more records than the file holds, so count only those that fit
+                unreadCount = Math.max(1, (buffer.limit() - recordEnd) / MIN_RECORD_SIZE);
+                if (count > tasks.size()) {
+                    unreadCount = Math.min(unreadCount, count - tasks.size());
+                }
+            }
+            return new TaskFileLoader.Result(tasks, tasks.size() + unreadCount, unreadCount, checksum.getValue(),
+                    nextId);
+        }
+    }
+
+    private static Task readTask(ByteBuffer buffer, byte[] scratch, boolean hasId) throws ClaudeException {
+        byte type = buffer.get();
+        byte flags = buffer.get();
+        int id = hasId ? buffer.getInt() : 0;
+        String description = readString(buffer, scratch);
+        Task task;
+        switch (type) {
+        case TODO:
+            task = new Todo(description);
+            break;
+        case DEADLINE:
+            if ((flags & FLAG_HAS_DATE) != 0) {
+                task = new Deadline(description, LocalDate.ofEpochDay(buffer.getInt()));
+            } else {
+                task = new Deadline(description, readString(buffer, scratch));
+            }
+            break;
+        case EVENT:
+            String from = readString(buffer, scratch);
+            String to = readString(buffer, scratch);
+            task = new Event(description, from, to);
+            break;
+        default:
+            throw new ClaudeException("Unknown task type: " + type);
+        }
+        if ((flags & FLAG_DONE) != 0) {
+            task.markAsDone();
+        }
+        task.setId(id);
+        return task;
+    }
+
+    private static String readString(ByteBuffer buffer, byte[] scratch) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        buffer.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
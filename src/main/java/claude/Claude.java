@@ -1,14 +1,34 @@
 package claude;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 /**
  * Main class for the Claude chatbot application.
  * Manages task creation, listing, and marking through a command-line interface.
+ * Tasks are loaded on a background thread, so the prompt appears at once and only the first
+ * command waits for the data file. A damaged data file is reported, and handled as the storage's
+ * recovery policy says; if the policy is to ask, the first command waits for the answer.
  */
 public class Claude {
 
     private Storage storage;
     private TaskList tasks;
+    private FutureTask<TaskList> loading;
     private Ui ui;
+    private ReadWriteLock lock;
+    private long writeBehindInterval;
+    private int parallelThreshold;
+    private boolean isCompact;
 
     /**
      * Creates a new Claude chatbot with the given file path for storage.
@@ -16,14 +36,108 @@ public class Claude {
      * @param filePath The path to the data file.
      */
     public Claude(String filePath) {
-        ui = new Ui();
-        storage = new Storage(filePath);
-        try {
-            tasks = new TaskList(storage.load());
-        } catch (ClaudeException e) {
-            ui.showLoadingError();
-            tasks = new TaskList();
+        this(new Storage(filePath));
+    }
+
+    /**
+     * Creates a new Claude chatbot backed by the given, already configured storage.
+     *
+     * @param storage The storage to load tasks from and save changes to.
+     */
+    public Claude(Storage storage) {
+        this.ui = new Ui();
+        this.storage = storage;
+        this.lock = new ReentrantReadWriteLock();
+        this.parallelThreshold = TaskList.DEFAULT_PARALLEL_THRESHOLD;
+        this.loading = new FutureTask<>(this::loadTasks);
+        Thread loader = new Thread(loading, "claude-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private TaskList loadTasks() throws ClaudeException {
+        ArrayList<Task> loaded = storage.load();
+        return loaded == null ? null : restore(loaded);
+    }
+
+    private TaskList restore(ArrayList<Task> loaded) {
+        TaskList restored = new TaskList(loaded, storage.getNextId());
+        storage.loadHistory(restored);
+        return restored;
+    }
+
+    /**
+     * Waits until the tasks are loaded, first asking what to do with a damaged data file if the policy says to,
+     * and stops the program if they must not be loaded at all.
+     */
+    private void awaitTasks() {
+        boolean isInterrupted = false;
+        while (tasks == null) {
+            try {
+                tasks = loading.get();
+                ui.showMessages(storage.takeMessages());
+                if (tasks == null) {
+                    // The data file is damaged and the user is to be asked, which only this thread may do
+                    tasks = restore(storage.recover(ui::askToRecover));
+                    ui.showMessages(storage.takeMessages());
+                }
+            } catch (InterruptedException e) {
+                // Giving up would mean saving an empty list over the data file, so keep waiting
+                isInterrupted = true;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                } else if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                // Starting with an empty list would overwrite the data file at the first change
+                ui.showMessages(storage.takeMessages());
+                ui.showLoadingError(e.getCause().getMessage());
+                ui.flush();
+                System.exit(1);
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
         }
+        tasks.setParallelThreshold(parallelThreshold);
+        tasks.setCompact(isCompact);
+    }
+
+    /**
+     * Sets the list size from which searches no index can answer are split across the cores.
+     *
+     * @param parallelThreshold The smallest list size scanned in parallel.
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Sets the tasks to be kept in memory in compact form once loaded, trading search speed for memory.
+     *
+     * @param isCompact Whether the tasks are kept in compact form.
+     */
+    public void setCompact(boolean isCompact) {
+        this.isCompact = isCompact;
+    }
+
+    /**
+     * Sets changes to be saved on a background thread every so often, instead of as each command runs.
+     *
+     * @param intervalMillis The time between saves in milliseconds, or 0 to save as each command runs.
+     */
+    public void setWriteBehind(long intervalMillis) {
+        this.writeBehindInterval = intervalMillis;
+    }
+
+    private WriteBehindSaver startSaver() {
+        if (writeBehindInterval <= 0) {
+            return null;
+        }
+        WriteBehindSaver saver = new WriteBehindSaver(storage, tasks, lock.readLock(), writeBehindInterval);
+        saver.start();
+        return saver;
     }
 
     /**
@@ -32,25 +146,230 @@ public class Claude {
     public void run() {
         ui.showWelcome();
         String fullCommand = ui.readCommand();
+        WriteBehindSaver saver = null;
         while (!fullCommand.equals("bye")) {
             ui.showLine();
+            if (tasks == null) {
+                awaitTasks();
+                saver = startSaver();
+            }
+            lock.writeLock().lock();
             try {
                 Parser.parseAndExecute(fullCommand, tasks, ui, storage);
             } catch (ClaudeException e) {
                 ui.showError(e.getMessage());
+            } finally {
+                lock.writeLock().unlock();
             }
             ui.showLine();
             fullCommand = ui.readCommand();
         }
+        // Without a command the tasks may still be loading, but then there is nothing to save either
+        if (tasks != null) {
+            if (saver != null) {
+                saver.stop();
+            }
+            storage.saveHistory(tasks);
+            storage.close();
+            ui.showMessages(storage.takeMessages());
+        }
         ui.showGoodbye();
+        ui.flush();
+    }
+
+    /**
+     * Runs every command from the reader without prompting, stopping early at "bye".
+     * Changes are kept in memory and saved every {@code saveInterval} commands and once at the end,
+     * instead of after every command.
+     *
+     * @param reader The source of commands, one per line.
+     * @param saveInterval How many commands to run between saves, or 0 to save only at the end.
+     * @return The number of commands that failed.
+     * @throws IOException If the commands cannot be read.
+     */
+    public int runBatch(BufferedReader reader, int saveInterval) throws IOException {
+        awaitTasks();
+        storage.setDeferred(true);
+        ArrayList<String> errors = new ArrayList<>();
+        int lineNumber = 0;
+        int commandCount = 0;
+        String fullCommand;
+        while ((fullCommand = reader.readLine()) != null && !fullCommand.equals("bye")) {
+            lineNumber++;
+            if (fullCommand.isBlank()) {
+                continue;
+            }
+            commandCount++;
+            try {
+                Parser.parseAndExecute(fullCommand, tasks, ui, storage);
+            } catch (ClaudeException e) {
+                ui.showError(e.getMessage());
+                errors.add("Line " + lineNumber + ": " + e.getMessage());
+            }
+            if (saveInterval > 0 && commandCount % saveInterval == 0) {
+                ui.flush();
+                storage.flush(tasks);
+                ui.showMessages(storage.takeMessages());
+            }
+        }
+        storage.flush(tasks);
+        storage.setDeferred(false);
+        storage.saveHistory(tasks);
+        storage.close();
+        ui.showMessages(storage.takeMessages());
+        ui.showBatchSummary(commandCount, errors);
+        ui.flush();
+        return errors.size();
+    }
+
+    /**
+     * Serves the task list to clients connecting on the given local port, until the process is stopped.
+     *
+     * @param port The port to listen on.
+     * @throws IOException If the port cannot be opened.
+     */
+    public void runServer(int port) throws IOException {
+        awaitTasks();
+        ui.flush();
+        startSaver();
+        new Server(tasks, storage, lock).serve(port);
     }
 
     /**
      * Starts the Claude chatbot.
+     * Pass {@code --journal} to append changes to a journal instead of rewriting the data file,
+     * {@code --durability=none|flush|fsync} to choose how hard writes are pushed to the disk,
+     * and {@code --format=text|binary} to choose the format of the data file.
+     * Pass {@code --keep-undo} to keep the undo history across restarts.
+     * Pass {@code --batch FILE} (or {@code --batch -} for standard input) to run a command script
+     * non-interactively, saving every {@code --save-every=N} commands and at the end.
+     * Pass {@code --server PORT} to share the task list with clients connecting on a local port.
+     * Pass {@code --write-behind} (or {@code --write-behind=MILLIS}) to save changes in the background.
+     * Pass {@code --recovery=prompt|recover|discard|fail|quarantine} to choose what happens to a damaged
+     * data file; batch and server runs never prompt, and quarantine the damaged lines by default.
+     * Pass {@code --parallel-threshold=N} to scan lists of at least N tasks on all cores.
+     * Pass {@code --compact} to keep the tasks in a compact columnar form that takes less memory.
      *
-     * @param args Command-line arguments (not used).
+     * @param args Command-line arguments.
      */
     public static void main(String[] args) {
-        new Claude("data/claude.txt").run();
+        boolean isJournaled = false;
+        String batchPath = null;
+        int port = -1;
+        int saveInterval = 0;
+        Durability durability = Durability.FLUSH;
+        SnapshotFormat format = SnapshotFormat.TEXT;
+        boolean isHistoryKept = false;
+        long writeBehindInterval = 0;
+        RecoveryPolicy recoveryPolicy = null;
+        int parallelThreshold = TaskList.DEFAULT_PARALLEL_THRESHOLD;
+        boolean isCompact = false;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--batch")) {
+                if (i + 1 == args.length) {
+                    System.out.println("Missing command file after --batch. "
+                            + "Usage: --batch FILE, or --batch - for standard input.");
+                    System.exit(1);
+                }
+                batchPath = args[++i];
+            } else if (arg.equals("--server")) {
+                if (i + 1 == args.length) {
+                    System.out.println("Missing port after --server. Usage: --server PORT");
+                    System.exit(1);
+                }
+                try {
+                    port = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid port " + args[i] + ".");
+                    System.exit(1);
+                }
+            } else if (arg.startsWith("--save-every=")) {
+                try {
+                    saveInterval = Integer.parseInt(arg.substring(13));
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid save interval " + arg.substring(13)
+                            + ", saving only at the end.");
+                }
+            } else if (arg.equals("--journal")) {
+                isJournaled = true;
+            } else if (arg.equals("--write-behind")) {
+                writeBehindInterval = WriteBehindSaver.DEFAULT_INTERVAL_MILLIS;
+            } else if (arg.startsWith("--write-behind=")) {
+                try {
+                    writeBehindInterval = Long.parseLong(arg.substring(15));
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid save interval " + arg.substring(15)
+                            + ", saving every " + WriteBehindSaver.DEFAULT_INTERVAL_MILLIS + " ms.");
+                    writeBehindInterval = WriteBehindSaver.DEFAULT_INTERVAL_MILLIS;
+                }
+            } else if (arg.startsWith("--parallel-threshold=")) {
+                try {
+                    parallelThreshold = Integer.parseInt(arg.substring(21));
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid parallel threshold " + arg.substring(21)
+                            + ", using " + TaskList.DEFAULT_PARALLEL_THRESHOLD + ".");
+                }
+            } else if (arg.equals("--compact")) {
+                isCompact = true;
+            } else if (arg.equals("--keep-undo")) {
+                isHistoryKept = true;
+            } else if (arg.startsWith("--durability=")) {
+                try {
+                    durability = Durability.valueOf(arg.substring(13).toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Unknown durability level " + arg.substring(13)
+                            + ", using flush.");
+                }
+            } else if (arg.startsWith("--recovery=")) {
+                try {
+                    recoveryPolicy = RecoveryPolicy.valueOf(arg.substring(11).toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Unknown recovery policy " + arg.substring(11) + ", using the default.");
+                }
+            } else if (arg.startsWith("--format=")) {
+                try {
+                    format = SnapshotFormat.valueOf(arg.substring(9).toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Unknown format " + arg.substring(9) + ", using text.");
+                }
+            }
+        }
+        Storage storage = new Storage("data/claude.txt", isJournaled);
+        storage.setDurability(durability);
+        storage.setFormat(format);
+        storage.setHistoryKept(isHistoryKept);
+        boolean isUnattended = batchPath != null || port >= 0;
+        if (recoveryPolicy == null || (recoveryPolicy == RecoveryPolicy.PROMPT && isUnattended)) {
+            recoveryPolicy = isUnattended ? RecoveryPolicy.QUARANTINE : RecoveryPolicy.PROMPT;
+        }
+        storage.setRecoveryPolicy(recoveryPolicy);
+        Claude claude = new Claude(storage);
+        claude.setWriteBehind(writeBehindInterval);
+        claude.setParallelThreshold(parallelThreshold);
+        claude.setCompact(isCompact);
+        if (port >= 0) {
+            try {
+                claude.runServer(port);
+            } catch (IOException e) {
+                System.out.println("Error starting server: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        if (batchPath == null) {
+            claude.run();
+            return;
+        }
+        try (BufferedReader reader = batchPath.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(batchPath), StandardCharsets.UTF_8)) {
+            if (claude.runBatch(reader, saveInterval) > 0) {
+                System.exit(1);
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading commands: " + e.getMessage());
+            System.exit(1);
+        }
     }
 }
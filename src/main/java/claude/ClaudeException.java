@@ -4,6 +4,7 @@ package claude;
  * Represents an exception specific to the Claude chatbot.
  */
 public class ClaudeException extends Exception {
+    private static final long serialVersionUID = 1L;
 
     /**
      * Creates a new ClaudeException with the given error message.
@@ -0,0 +1,18 @@
+package claude;
+
+/**
+ * A command the user can run, such as adding or listing tasks.
+ */
+@FunctionalInterface
+public interface Command {
+    /**
+     * Executes the command.
+     *
+     * @param arguments Everything after the command keyword, trimmed. Empty if there is nothing.
+     * @param tasks The task list to operate on.
+     * @param ui The UI to display results.
+     * @param storage The storage to save changes.
+     * @throws ClaudeException If the arguments are invalid or the command fails.
+     */
+    void execute(String arguments, TaskList tasks, Ui ui, Storage storage) throws ClaudeException;
+}
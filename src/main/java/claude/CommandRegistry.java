@@ -0,0 +1,78 @@
+package claude;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * Maps command keywords, and any aliases for them, to the commands they run.
+ * Commands that only read the task list are flagged, so they can run side by side.
+ */
+public class CommandRegistry {
+    private HashMap<String, Command> commands;
+    private HashSet<String> readOnlyKeywords;
+
+    /**
+     * Creates an empty registry.
+     */
+    public CommandRegistry() {
+        this.commands = new HashMap<>();
+        this.readOnlyKeywords = new HashSet<>();
+    }
+
+    /**
+     * Registers a command under a keyword and any number of aliases.
+     *
+     * @param keyword The main keyword of the command.
+     * @param command The command to run.
+     * @param aliases Other keywords that run the same command.
+     * @throws IllegalArgumentException If a keyword is already registered.
+     */
+    public void register(String keyword, Command command, String... aliases) {
+        put(keyword, command);
+        for (String alias : aliases) {
+            put(alias, command);
+        }
+    }
+
+    /**
+     * Registers a command that never changes the task list or storage.
+     *
+     * @param keyword The main keyword of the command.
+     * @param command The command to run.
+     * @param aliases Other keywords that run the same command.
+     * @throws IllegalArgumentException If a keyword is already registered.
+     */
+    public void registerReadOnly(String keyword, Command command, String... aliases) {
+        register(keyword, command, aliases);
+        readOnlyKeywords.add(keyword);
+        for (String alias : aliases) {
+            readOnlyKeywords.add(alias);
+        }
+    }
+
+    /**
+     * Returns whether the command under a keyword only reads the task list.
+     *
+     * @param keyword The keyword typed by the user.
+     * @return True if the command was registered as read-only.
+     */
+    public boolean isReadOnly(String keyword) {
+        return readOnlyKeywords.contains(keyword);
+    }
+
+    private void put(String keyword, Command command) {
+        if (commands.putIfAbsent(keyword, command) != null) {
+            throw new IllegalArgumentException("Command " + keyword + " is already registered.");
+        }
+    }
+
+    /**
+     * Returns the command registered under a keyword.
+     *
+     * @param keyword The keyword typed by the user.
+     * @return The command, or null if the keyword is unknown.
+     */
+    public Command get(String keyword) {
+        return commands.get(keyword);
+    }
+}
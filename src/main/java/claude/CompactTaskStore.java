@@ -0,0 +1,376 @@
+package claude;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Stores tasks column by column instead of as objects, for very large lists kept in memory.
+ * Each row takes a type byte, a done bit, its ID, two epoch-day ints for its dates, and an offset
+ * into a shared byte arena holding its texts as UTF-8. Dates given as plain ISO dates are kept
+ * only as epoch days. A row can be empty, like a slot whose task was deleted.
+ * {@link #get} builds a new {@link Task} view from the columns on demand; changing that task does
+ * not change the store, so the done status is changed through {@link #setDone}.
+ */
+public class CompactTaskStore {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NO_DAY = Integer.MIN_VALUE;
+    private static final byte TODO = 0;
+    private static final byte DEADLINE = 1;
+    private static final byte EVENT = 2;
+    private static final byte EMPTY = 3;
+    private static final byte TYPE_MASK = 3;
+    // Set when the first or second date of a task is kept only as an epoch day, without its text
+    private static final byte FIRST_DAY_ONLY = 4;
+    private static final byte SECOND_DAY_ONLY = 8;
+
+    private byte[] kinds;
+    private long[] doneBits;
+    private int[] ids;
+    private int[] firstDays;
+    private int[] secondDays;
+    private int[] textOffsets;
+    private byte[] arena;
+    private int arenaSize;
+    private int garbageSize;
+    private int size;
+
+    /**
+     * Creates an empty store.
+     */
+    public CompactTaskStore() {
+        kinds = new byte[INITIAL_CAPACITY];
+        doneBits = new long[1];
+        ids = new int[INITIAL_CAPACITY];
+        firstDays = new int[INITIAL_CAPACITY];
+        secondDays = new int[INITIAL_CAPACITY];
+        textOffsets = new int[INITIAL_CAPACITY];
+        arena = new byte[INITIAL_CAPACITY * 32];
+    }
+
+    /**
+     * Creates a store holding the given tasks, one per row in order.
+     *
+     * @param tasks The tasks to store.
+     * @return The new store.
+     */
+    public static CompactTaskStore of(List<Task> tasks) {
+        CompactTaskStore store = new CompactTaskStore();
+        for (Task task : tasks) {
+            store.add(task);
+        }
+        store.trimToSize();
+        return store;
+    }
+
+    /**
+     * Adds a copy of a task as a new row at the end of the store.
+     *
+     * @param task The task to add.
+     */
+    public void add(Task task) {
+        if (size == kinds.length) {
+            grow();
+        }
+        write(size++, task);
+    }
+
+    /**
+     * Replaces a row with a copy of a task. The texts of the old row are left behind in the arena.
+     *
+     * @param index The zero-based index of the row.
+     * @param task The task to store.
+     */
+    public void set(int index, Task task) {
+        Objects.checkIndex(index, size);
+        discardTexts(index);
+        write(index, task);
+    }
+
+    /**
+     * Empties a row, so {@link #get} returns null for it.
+     *
+     * @param index The zero-based index of the row.
+     */
+    public void clear(int index) {
+        Objects.checkIndex(index, size);
+        discardTexts(index);
+        kinds[index] = EMPTY;
+        doneBits[index >>> 6] &= ~(1L << index);
+    }
+
+    private void write(int index, Task task) {
+        byte kind;
+        int firstDay = NO_DAY;
+        int secondDay = NO_DAY;
+        textOffsets[index] = arenaSize;
+        appendText(task.getDescription());
+        if (task instanceof Deadline) {
+            Deadline deadline = (Deadline) task;
+            kind = DEADLINE;
+            if (deadline.getByDate() != null) {
+                firstDay = (int) deadline.getByDate().toEpochDay();
+                kind |= FIRST_DAY_ONLY;
+            } else {
+                appendText(deadline.getBy());
+            }
+        } else if (task instanceof Event) {
+            Event event = (Event) task;
+            kind = EVENT;
+            if (event.getFromDate() != null) {
+                firstDay = (int) event.getFromDate().toEpochDay();
+            }
+            if (event.getToDate() != null) {
+                secondDay = (int) event.getToDate().toEpochDay();
+            }
+            // A date-time keeps its text, as only its day fits in the column
+            if (isPlainDate(event.getFrom(), event.getFromDate())) {
+                kind |= FIRST_DAY_ONLY;
+            } else {
+                appendText(event.getFrom());
+            }
+            if (isPlainDate(event.getTo(), event.getToDate())) {
+                kind |= SECOND_DAY_ONLY;
+            } else {
+                appendText(event.getTo());
+            }
+        } else {
+            kind = TODO;
+        }
+        kinds[index] = kind;
+        ids[index] = task.getId();
+        firstDays[index] = firstDay;
+        secondDays[index] = secondDay;
+        setDone(index, task.isDone());
+    }
+
+    private static boolean isPlainDate(String text, LocalDate date) {
+        return date != null && text.length() == 10;
+    }
+
+    private void grow() {
+        int capacity = kinds.length * 2;
+        kinds = Arrays.copyOf(kinds, capacity);
+        doneBits = Arrays.copyOf(doneBits, (capacity + 63) >>> 6);
+        ids = Arrays.copyOf(ids, capacity);
+        firstDays = Arrays.copyOf(firstDays, capacity);
+        secondDays = Arrays.copyOf(secondDays, capacity);
+        textOffsets = Arrays.copyOf(textOffsets, capacity);
+    }
+
+    /**
+     * Writes a text to the arena as its UTF-8 length in 7-bit groups, followed by its bytes.
+     */
+    private void appendText(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (arenaSize + bytes.length + 5 > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arenaSize + bytes.length + 5, arena.length + (arena.length >> 1)));
+        }
+        int length = bytes.length;
+        while (length >= 0x80) {
+            arena[arenaSize++] = (byte) (length | 0x80);
+            length >>>= 7;
+        }
+        arena[arenaSize++] = (byte) length;
+        System.arraycopy(bytes, 0, arena, arenaSize, bytes.length);
+        arenaSize += bytes.length;
+    }
+
+    /**
+     * Counts the texts of a row as garbage, and compacts the arena once garbage makes up half of it.
+     */
+    private void discardTexts(int index) {
+        if (kinds[index] == EMPTY) {
+            return;
+        }
+        garbageSize += textLength(index);
+        kinds[index] = EMPTY;
+        if (garbageSize > arenaSize / 2) {
+            compactArena();
+        }
+    }
+
+    private int textLength(int index) {
+        int offset = textOffsets[index];
+        int fieldCount = countTextFields(kinds[index]);
+        for (int i = 0; i < fieldCount; i++) {
+            int length = 0;
+            int shift = 0;
+            byte next;
+            do {
+                next = arena[offset++];
+                length |= (next & 0x7f) << shift;
+                shift += 7;
+            } while (next < 0);
+            offset += length;
+        }
+        return offset - textOffsets[index];
+    }
+
+    private static int countTextFields(byte kind) {
+        switch (kind & TYPE_MASK) {
+        case DEADLINE:
+            return (kind & FIRST_DAY_ONLY) != 0 ? 1 : 2;
+        case EVENT:
+            return 1 + ((kind & FIRST_DAY_ONLY) != 0 ? 0 : 1) + ((kind & SECOND_DAY_ONLY) != 0 ? 0 : 1);
+        default:
+            return 1;
+        }
+    }
+
+    private void compactArena() {
+        byte[] compacted = new byte[Math.max(INITIAL_CAPACITY, arenaSize - garbageSize)];
+        int compactedSize = 0;
+        for (int i = 0; i < size; i++) {
+            if (kinds[i] == EMPTY) {
+                continue;
+            }
+            int length = textLength(i);
+            System.arraycopy(arena, textOffsets[i], compacted, compactedSize, length);
+            textOffsets[i] = compactedSize;
+            compactedSize += length;
+        }
+        arena = compacted;
+        arenaSize = compactedSize;
+        garbageSize = 0;
+    }
+
+    /**
+     * Returns the number of rows in the store, including empty ones.
+     *
+     * @return The number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a new task built from the columns of a row.
+     *
+     * @param index The zero-based index of the row.
+     * @return The task, or null if the row is empty.
+     */
+    public Task get(int index) {
+        Objects.checkIndex(index, size);
+        byte kind = kinds[index];
+        if (kind == EMPTY) {
+            return null;
+        }
+        int[] position = {textOffsets[index]};
+        String description = readText(position);
+        Task task;
+        switch (kind & TYPE_MASK) {
+        case DEADLINE:
+            task = (kind & FIRST_DAY_ONLY) != 0
+                    ? new Deadline(description, LocalDate.ofEpochDay(firstDays[index]))
+                    : new Deadline(description, readText(position));
+            break;
+        case EVENT:
+            if ((kind & (FIRST_DAY_ONLY | SECOND_DAY_ONLY)) == (FIRST_DAY_ONLY | SECOND_DAY_ONLY)) {
+                task = new Event(description, LocalDate.ofEpochDay(firstDays[index]),
+                        LocalDate.ofEpochDay(secondDays[index]));
+                break;
+            }
+            String from = (kind & FIRST_DAY_ONLY) != 0
+                    ? LocalDate.ofEpochDay(firstDays[index]).toString() : readText(position);
+            String to = (kind & SECOND_DAY_ONLY) != 0
+                    ? LocalDate.ofEpochDay(secondDays[index]).toString() : readText(position);
+            task = new Event(description, from, to);
+            break;
+        default:
+            task = new Todo(description);
+            break;
+        }
+        task.setId(ids[index]);
+        if (isDone(index)) {
+            task.markAsDone();
+        }
+        return task;
+    }
+
+    /**
+     * Reads the text at the given arena position and moves the position past it.
+     */
+    private String readText(int[] position) {
+        int offset = position[0];
+        int length = 0;
+        int shift = 0;
+        byte next;
+        do {
+            next = arena[offset++];
+            length |= (next & 0x7f) << shift;
+            shift += 7;
+        } while (next < 0);
+        position[0] = offset + length;
+        return new String(arena, offset, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns whether a row is empty.
+     *
+     * @param index The zero-based index of the row.
+     * @return true if the row holds no task.
+     */
+    public boolean isEmpty(int index) {
+        Objects.checkIndex(index, size);
+        return kinds[index] == EMPTY;
+    }
+
+    /**
+     * Returns whether the task in a row is done.
+     *
+     * @param index The zero-based index of the row.
+     * @return true if the task is done.
+     */
+    public boolean isDone(int index) {
+        Objects.checkIndex(index, size);
+        return (doneBits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Marks the task in a row as done or not done.
+     *
+     * @param index The zero-based index of the row.
+     * @param isDone Whether the task is done.
+     */
+    public void setDone(int index, boolean isDone) {
+        Objects.checkIndex(index, size);
+        if (isDone) {
+            doneBits[index >>> 6] |= 1L << index;
+        } else {
+            doneBits[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    /**
+     * Counts the done tasks, reading only the done column.
+     *
+     * @return The number of done tasks.
+     */
+    public int countDone() {
+        int count = 0;
+        for (int i = 0; i < (size + 63) >>> 6; i++) {
+            count += Long.bitCount(doneBits[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Shrinks the columns and the arena to what the rows need, to save memory once loading is done.
+     */
+    public void trimToSize() {
+        int capacity = Math.max(INITIAL_CAPACITY, size);
+        kinds = Arrays.copyOf(kinds, capacity);
+        doneBits = Arrays.copyOf(doneBits, (capacity + 63) >>> 6);
+        ids = Arrays.copyOf(ids, capacity);
+        firstDays = Arrays.copyOf(firstDays, capacity);
+        secondDays = Arrays.copyOf(secondDays, capacity);
+        textOffsets = Arrays.copyOf(textOffsets, capacity);
+        if (garbageSize > 0) {
+            compactArena();
+        }
+        arena = Arrays.copyOf(arena, Math.max(INITIAL_CAPACITY, arenaSize));
+    }
+}
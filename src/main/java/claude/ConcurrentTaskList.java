@@ -0,0 +1,321 @@
+package claude;
+
+import java.lang.invoke.VarHandle;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A task list that many threads can use at once without a lock of their own.
+ * Positional reads such as {@link #get} and {@link #size} are optimistic: they take no lock and
+ * only retry under a read lock if a change happened meanwhile, so they scale with the number of
+ * cores. Searches run under a shared read lock and changes under an exclusive write lock; a waiting
+ * change goes ahead of new searches, so a steady stream of searches cannot starve it.
+ * Iterators work on a snapshot taken when they are created, so they never see a half-made change.
+ * A sequence of calls, such as looking a task up and then deleting it, is still not atomic.
+ */
+public class ConcurrentTaskList extends TaskList {
+    private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Odd while a change is being made, and moved on by every change
+    private AtomicLong version = new AtomicLong();
+
+    /**
+     * Creates an empty task list.
+     */
+    public ConcurrentTaskList() {
+        super();
+    }
+
+    /**
+     * Creates a task list with the given tasks.
+     *
+     * @param tasks The initial list of tasks.
+     */
+    public ConcurrentTaskList(ArrayList<Task> tasks) {
+        super(tasks);
+    }
+
+    /**
+     * Creates a task list with the given tasks, never handing out IDs below the given one.
+     *
+     * @param tasks The initial list of tasks.
+     * @param nextId The lowest ID new tasks may get.
+     */
+    public ConcurrentTaskList(ArrayList<Task> tasks, int nextId) {
+        super(tasks, nextId);
+    }
+
+    private <T> T readOptimistically(Supplier<T> reader) {
+        long before = version.get();
+        if ((before & 1) == 0) {
+            try {
+                T result = reader.get();
+                VarHandle.acquireFence();
+                if (version.get() == before) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // A change made meanwhile can make the fields inconsistent, so only trust an unchanged read
+                VarHandle.acquireFence();
+                if (version.get() == before) {
+                    throw e;
+                }
+            }
+        }
+        return read(reader);
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T write(Supplier<T> writer) {
+        lock.writeLock().lock();
+        version.incrementAndGet();
+        try {
+            return writer.get();
+        } finally {
+            version.incrementAndGet();
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void add(Task task) {
+        write(() -> {
+            super.add(task);
+            return null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void insert(int index, Task task) {
+        write(() -> {
+            super.insert(index, task);
+            return null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void insertAll(int[] indices, List<Task> inserted) {
+        write(() -> {
+            super.insertAll(indices, inserted);
+            return null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Task delete(int index) {
+        return write(() -> super.delete(index));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ArrayList<Task> deleteAll(int[] indices) {
+        return write(() -> super.deleteAll(indices));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean setDone(int index, boolean isDone) {
+        return write(() -> super.setDone(index, isDone));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setCompact(boolean isCompact) {
+        write(() -> {
+            super.setCompact(isCompact);
+            return null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNextId() {
+        return read(super::getNextId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public UndoLog getHistory() {
+        return write(super::getHistory);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setHistory(UndoLog history) {
+        write(() -> {
+            super.setHistory(history);
+            return null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * Takes no lock unless the list changes meanwhile.
+     */
+    @Override
+    public Task get(int index) {
+        return readOptimistically(() -> super.get(index));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Takes no lock unless the list changes meanwhile.
+     */
+    @Override
+    public int size() {
+        return readOptimistically(super::size);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Takes no lock unless the list changes meanwhile.
+     */
+    @Override
+    public int indexOfId(int id) {
+        return readOptimistically(() -> super.indexOfId(id));
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the tasks in list order.
+     *
+     * @return The iterator.
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        return getTasks().iterator();
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the tasks in list order, starting at the given index.
+     *
+     * @param fromIndex The zero-based index of the first task to return.
+     * @return The iterator.
+     */
+    @Override
+    public Iterator<Task> iterator(int fromIndex) {
+        return read(() -> {
+            ArrayList<Task> snapshot = new ArrayList<>();
+            for (Iterator<Task> tasks = super.iterator(fromIndex); tasks.hasNext(); ) {
+                snapshot.add(tasks.next());
+            }
+            return snapshot.iterator();
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int count(StatusFilter filter) {
+        return read(() -> super.count(filter));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ArrayList<Task> getTasks() {
+        return read(super::getTasks);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TaskList find(String keyword) {
+        return read(() -> super.find(keyword));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ArrayList<Task> filter(Predicate<Task> matcher) {
+        return read(() -> super.filter(matcher));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ArrayList<Task> search(FindQuery query) {
+        return read(() -> super.search(query));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int estimateFind(String keyword) {
+        return read(() -> super.estimateFind(keyword));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int estimateDue(LocalDate start, LocalDate end) {
+        return read(() -> super.estimateDue(start, end));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int estimateEvents(LocalDate start, LocalDate end) {
+        return read(() -> super.estimateEvents(start, end));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TaskList findDue(LocalDate start, LocalDate end, boolean includesEvents) {
+        return read(() -> super.findDue(start, end, includesEvents));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TaskList findEvents(LocalDate start, LocalDate end) {
+        return read(() -> super.findEvents(start, end));
+    }
+}
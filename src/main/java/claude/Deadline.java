@@ -1,9 +1,7 @@
 package claude;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.util.Locale;
 
 /**
  * Represents a task with a deadline.
@@ -11,6 +9,8 @@ import java.util.Locale;
 public class Deadline extends Task {
     protected String by;
     protected LocalDate byDate;
+    // The rendered due date, made on first display; it never changes, as the status is not part of it
+    private String renderedBy;
 
     /**
      * Creates a new Deadline task with the given description and due date.
@@ -22,13 +22,37 @@ public class Deadline extends Task {
     public Deadline(String description, String by) {
         super(description);
         this.by = by;
-        try {
-            this.byDate = LocalDate.parse(by);
-        } catch (DateTimeParseException e) {
-            this.byDate = null;
+        this.byDate = null;
+        if (Tokenizer.isIsoDate(by)) {
+            try {
+                this.byDate = LocalDate.parse(by);
+            } catch (DateTimeParseException e) {
+                // Shaped like a date but not a real one, such as 2025-02-30
+            }
         }
     }
 
+    /**
+     * Creates a new Deadline task with the given description and an already parsed due date.
+     *
+     * @param description The description of the deadline task.
+     * @param byDate The due date of this task.
+     */
+    public Deadline(String description, LocalDate byDate) {
+        super(description);
+        this.by = byDate.toString();
+        this.byDate = byDate;
+    }
+
+    /**
+     * Returns the due date as it was given.
+     *
+     * @return The raw due date string.
+     */
+    public String getBy() {
+        return by;
+    }
+
     /**
      * Returns the parsed due date, or null if the date is not in yyyy-mm-dd format.
      *
@@ -52,15 +76,24 @@ public class Deadline extends Task {
 
     /**
      * {@inheritDoc}
-     * Formats the due date using "MMM d yyyy" if parseable, otherwise uses the raw string.
+     * Includes the deadline type prefix, and formats the due date using "MMM d yyyy" if parseable,
+     * otherwise uses the raw string.
      */
     @Override
-    public String toString() {
-        if (byDate != null) {
-            return "[D]" + super.toString() + " (by: "
-                    + byDate.format(DateTimeFormatter.ofPattern("MMM d yyyy", Locale.ENGLISH))
-                            .replace("Sep ", "Sept ") + ")";
+    public void appendTo(StringBuilder out) {
+        out.append("[D]");
+        super.appendTo(out);
+        String rendered = renderedBy;
+        if (rendered == null) {
+            StringBuilder suffix = new StringBuilder(" (by: ");
+            if (byDate != null) {
+                DisplayDates.appendDate(suffix, byDate);
+            } else {
+                suffix.append(by);
+            }
+            rendered = suffix.append(')').toString();
+            renderedBy = rendered;
         }
-        return "[D]" + super.toString() + " (by: " + by + ")";
+        out.append(rendered);
     }
 }
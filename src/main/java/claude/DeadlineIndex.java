@@ -0,0 +1,91 @@
+package claude;
+
+import java.time.LocalDate;
+import java.util.TreeMap;
+
+/**
+ * Secondary index of deadlines by due date, answering date range queries in O(log n + k).
+ * Deadlines whose due date could not be parsed are not indexed.
+ */
+public class DeadlineIndex {
+    private TreeMap<Long, TreeMap<Long, Task>> tasksByDay;
+
+    /**
+     * Creates an empty index.
+     */
+    public DeadlineIndex() {
+        this.tasksByDay = new TreeMap<>();
+    }
+
+    /**
+     * Indexes a task if it is a deadline with a parsed due date.
+     *
+     * @param task The task to index.
+     * @param orderKey The key giving the task's position relative to other tasks.
+     */
+    public void add(Task task, long orderKey) {
+        LocalDate byDate = getByDate(task);
+        if (byDate != null) {
+            tasksByDay.computeIfAbsent(byDate.toEpochDay(), k -> new TreeMap<>()).put(orderKey, task);
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task The task to remove.
+     * @param orderKey The key the task was indexed under.
+     */
+    public void remove(Task task, long orderKey) {
+        LocalDate byDate = getByDate(task);
+        if (byDate == null) {
+            return;
+        }
+        TreeMap<Long, Task> day = tasksByDay.get(byDate.toEpochDay());
+        if (day != null) {
+            day.remove(orderKey);
+            if (day.isEmpty()) {
+                tasksByDay.remove(byDate.toEpochDay());
+            }
+        }
+    }
+
+    /**
+     * Returns the deadlines due between the two dates, both inclusive, in list order.
+     *
+     * @param start The first day of the range.
+     * @param end The last day of the range.
+     * @return The matching deadlines keyed by order key.
+     */
+    public TreeMap<Long, Task> between(LocalDate start, LocalDate end) {
+        TreeMap<Long, Task> result = new TreeMap<>();
+        for (TreeMap<Long, Task> day : tasksByDay.subMap(start.toEpochDay(), true,
+                end.toEpochDay(), true).values()) {
+            result.putAll(day);
+        }
+        return result;
+    }
+
+    /**
+     * Returns how many deadlines are due between the two dates, both inclusive.
+     *
+     * @param start The first day of the range.
+     * @param end The last day of the range.
+     * @return The number of matching deadlines.
+     */
+    public int count(LocalDate start, LocalDate end) {
+        int count = 0;
+        for (TreeMap<Long, Task> day : tasksByDay.subMap(start.toEpochDay(), true,
+                end.toEpochDay(), true).values()) {
+            count += day.size();
+        }
+        return count;
+    }
+
+    private static LocalDate getByDate(Task task) {
+        if (task instanceof Deadline) {
+            return ((Deadline) task).getByDate();
+        }
+        return null;
+    }
+}
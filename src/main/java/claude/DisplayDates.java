@@ -0,0 +1,69 @@
+package claude;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Formats dates for display as "MMM d yyyy" or "MMM d yyyy HH:mm", writing September as "Sept".
+ * Dates are appended straight into a StringBuilder, so listing tasks creates no strings for them.
+ */
+public class DisplayDates {
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("MMM d yyyy", Locale.ENGLISH);
+    private static final String[] MONTHS = {"Jan", "Feb", "Mar", "Apr", "May", "Jun",
+        "Jul", "Aug", "Sept", "Oct", "Nov", "Dec"};
+
+    /**
+     * Returns a date formatted for display.
+     *
+     * @param date The date to format.
+     * @return The formatted date, such as "Sept 5 2025".
+     */
+    public static String format(LocalDate date) {
+        StringBuilder out = new StringBuilder(11);
+        appendDate(out, date);
+        return out.toString();
+    }
+
+    /**
+     * Appends a date formatted for display.
+     *
+     * @param out The builder to append to.
+     * @param date The date to append.
+     */
+    public static void appendDate(StringBuilder out, LocalDate date) {
+        int year = date.getYear();
+        if (year < 1 || year > 9999) {
+            // Years outside four digits get a sign or an era, so leave them to the formatter
+            out.append(date.format(DATE_FORMAT).replace("Sep ", "Sept "));
+            return;
+        }
+        out.append(MONTHS[date.getMonthValue() - 1]).append(' ').append(date.getDayOfMonth()).append(' ');
+        appendPadded(out, year, 4);
+    }
+
+    /**
+     * Appends a date-time formatted for display.
+     *
+     * @param out The builder to append to.
+     * @param dateTime The date-time to append.
+     */
+    public static void appendDateTime(StringBuilder out, LocalDateTime dateTime) {
+        appendDate(out, dateTime.toLocalDate());
+        out.append(' ');
+        appendPadded(out, dateTime.getHour(), 2);
+        out.append(':');
+        appendPadded(out, dateTime.getMinute(), 2);
+    }
+
+    private static void appendPadded(StringBuilder out, int value, int width) {
+        for (int limit = 10; width > 1; width--, limit *= 10) {
+            if (value < limit) {
+                out.append('0');
+            }
+        }
+        out.append(value);
+    }
+}
@@ -0,0 +1,15 @@
+package claude;
+
+/**
+ * Represents how hard Storage works to get written data onto the disk before returning.
+ * The levels differ for journal records; a snapshot must be written in full before it replaces
+ * the data file, so NONE writes snapshots as FLUSH does.
+ */
+public enum Durability {
+    /** Leaves journal records buffered in memory until the journal is closed. Fastest, least safe. */
+    NONE,
+    /** Hands each journal record and snapshot to the operating system, surviving a crash of the program. */
+    FLUSH,
+    /** Forces each journal record and snapshot to the disk, surviving a crash of the machine. Slowest. */
+    FSYNC
+}
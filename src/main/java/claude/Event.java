@@ -1,14 +1,27 @@
 package claude;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
 /**
  * Represents a task that spans a time period with a start and end time.
+ * Start and end times in yyyy-mm-dd or yyyy-mm-ddThh:mm format are also stored parsed,
+ * so events can be looked up by date.
  */
 public class Event extends Task {
     protected String from;
     protected String to;
+    protected LocalDate fromDate;
+    protected LocalDate toDate;
+    protected LocalDateTime fromTime;
+    protected LocalDateTime toTime;
+    // The rendered start and end times, made on first display; the status is not part of it
+    private String renderedTimes;
 
     /**
      * Creates a new Event task with the given description, start and end times.
+     * Times given as an ISO date or date-time are parsed as well.
      *
      * @param description The description of the event.
      * @param from The start time of the event.
@@ -18,23 +31,128 @@ public class Event extends Task {
         super(description);
         this.from = from;
         this.to = to;
+        this.fromTime = parseDateTime(from);
+        this.toTime = parseDateTime(to);
+        this.fromDate = fromTime != null ? fromTime.toLocalDate() : parseDate(from);
+        this.toDate = toTime != null ? toTime.toLocalDate() : parseDate(to);
+    }
+
+    /**
+     * Creates a new event with the given description and already parsed start and end dates.
+     *
+     * @param description The description of the event.
+     * @param fromDate The start date of the event.
+     * @param toDate The end date of the event.
+     */
+    public Event(String description, LocalDate fromDate, LocalDate toDate) {
+        super(description);
+        this.from = fromDate.toString();
+        this.to = toDate.toString();
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+    }
+
+    /**
+     * Parses an ISO date-time, accepting a space instead of the 'T' separator.
+     *
+     * @param value The string to parse.
+     * @return The parsed date-time, or null if the string is not a date-time.
+     */
+    static LocalDateTime parseDateTime(String value) {
+        if (value.length() <= 10 || !Tokenizer.startsWithIsoDate(value)) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value.replace(' ', 'T'));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (!Tokenizer.isIsoDate(value)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the start time of this event.
+     *
+     * @return The start time as it was given.
+     */
+    public String getFrom() {
+        return from;
+    }
+
+    /**
+     * Returns the end time of this event.
+     *
+     * @return The end time as it was given.
+     */
+    public String getTo() {
+        return to;
+    }
+
+    /**
+     * Returns the day this event starts on, or null if the start time is not an ISO date or date-time.
+     *
+     * @return The start day as a LocalDate, or null.
+     */
+    public LocalDate getFromDate() {
+        return fromDate;
+    }
+
+    /**
+     * Returns the day this event ends on, or null if the end time is not an ISO date or date-time.
+     *
+     * @return The end day as a LocalDate, or null.
+     */
+    public LocalDate getToDate() {
+        return toDate;
     }
 
     /**
      * {@inheritDoc}
-     * Includes the event type prefix and time range.
+     * Includes the event type prefix and the start and end times as separate fields.
      */
     @Override
     public String toFileString() {
-        return "E | " + super.toFileString() + " | " + from + "-" + to;
+        return "E | " + super.toFileString() + " | " + from + " | " + to;
     }
 
     /**
      * {@inheritDoc}
-     * Includes the start and end times.
+     * Includes the event type prefix, and formats parseable start and end times using "MMM d yyyy",
+     * otherwise uses the raw strings.
      */
     @Override
-    public String toString() {
-        return "[E]" + super.toString() + " (from: " + from + " to: " + to + ")";
+    public void appendTo(StringBuilder out) {
+        out.append("[E]");
+        super.appendTo(out);
+        String rendered = renderedTimes;
+        if (rendered == null) {
+            StringBuilder suffix = new StringBuilder(" (from: ");
+            appendTime(suffix, from, fromDate, fromTime);
+            suffix.append(" to: ");
+            appendTime(suffix, to, toDate, toTime);
+            rendered = suffix.append(')').toString();
+            renderedTimes = rendered;
+        }
+        out.append(rendered);
+    }
+
+    private static void appendTime(StringBuilder out, String raw, LocalDate date, LocalDateTime dateTime) {
+        if (dateTime != null) {
+            DisplayDates.appendDateTime(out, dateTime);
+        } else if (date != null) {
+            DisplayDates.appendDate(out, date);
+        } else {
+            out.append(raw);
+        }
     }
-}
\ No newline at end of file
+}
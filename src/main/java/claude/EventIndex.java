@@ -0,0 +1,226 @@
+package claude;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+/**
+ * Interval tree over events with parsed start and end dates, answering
+ * "which events overlap this date range" in O(log n + k).
+ * The tree is a treap ordered by start day, where every node also records the latest
+ * end day in its subtree so whole subtrees that end too early can be skipped.
+ */
+public class EventIndex {
+    private Node root;
+    private SplittableRandom random;
+
+    /**
+     * Creates an empty index.
+     */
+    public EventIndex() {
+        this.random = new SplittableRandom(0x5eed);
+    }
+
+    private static class Node {
+        private long start;
+        private long end;
+        private long orderKey;
+        private Task task;
+        private int priority;
+        private long maxEnd;
+        private Node left;
+        private Node right;
+
+        Node(long start, long end, long orderKey, Task task, int priority) {
+            this.start = start;
+            this.end = end;
+            this.orderKey = orderKey;
+            this.task = task;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+
+        int compareTo(long otherStart, long otherOrderKey) {
+            if (start != otherStart) {
+                return Long.compare(start, otherStart);
+            }
+            return Long.compare(orderKey, otherOrderKey);
+        }
+
+        void update() {
+            maxEnd = end;
+            if (left != null && left.maxEnd > maxEnd) {
+                maxEnd = left.maxEnd;
+            }
+            if (right != null && right.maxEnd > maxEnd) {
+                maxEnd = right.maxEnd;
+            }
+        }
+    }
+
+    /**
+     * Indexes a task if it is an event with parsed start and end dates.
+     *
+     * @param task The task to index.
+     * @param orderKey The key giving the task's position relative to other tasks.
+     */
+    public void add(Task task, long orderKey) {
+        long[] interval = getInterval(task);
+        if (interval != null) {
+            root = insert(root, new Node(interval[0], interval[1], orderKey, task, random.nextInt()));
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task The task to remove.
+     * @param orderKey The key the task was indexed under.
+     */
+    public void remove(Task task, long orderKey) {
+        long[] interval = getInterval(task);
+        if (interval != null) {
+            root = delete(root, interval[0], orderKey);
+        }
+    }
+
+    /**
+     * Returns the events overlapping the two dates, both inclusive, in list order.
+     *
+     * @param start The first day of the range.
+     * @param end The last day of the range.
+     * @return The matching events keyed by order key.
+     */
+    public TreeMap<Long, Task> overlapping(LocalDate start, LocalDate end) {
+        TreeMap<Long, Task> result = new TreeMap<>();
+        collect(root, start.toEpochDay(), end.toEpochDay(), result);
+        return result;
+    }
+
+    private static void collect(Node node, long start, long end, TreeMap<Long, Task> result) {
+        if (node == null || node.maxEnd < start) {
+            return;
+        }
+        collect(node.left, start, end, result);
+        if (node.start > end) {
+            // Everything to the right starts even later
+            return;
+        }
+        if (node.end >= start) {
+            result.put(node.orderKey, node.task);
+        }
+        collect(node.right, start, end, result);
+    }
+
+    /**
+     * Returns how many events overlap the two dates, both inclusive.
+     *
+     * @param start The first day of the range.
+     * @param end The last day of the range.
+     * @return The number of matching events.
+     */
+    public int count(LocalDate start, LocalDate end) {
+        return count(root, start.toEpochDay(), end.toEpochDay());
+    }
+
+    private static int count(Node node, long start, long end) {
+        if (node == null || node.maxEnd < start) {
+            return 0;
+        }
+        int count = count(node.left, start, end);
+        if (node.start > end) {
+            return count;
+        }
+        if (node.end >= start) {
+            count++;
+        }
+        return count + count(node.right, start, end);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (node.compareTo(added.start, added.orderKey) > 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node delete(Node node, long start, long orderKey) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = node.compareTo(start, orderKey);
+        if (comparison > 0) {
+            node.left = delete(node.left, start, orderKey);
+        } else if (comparison < 0) {
+            node.right = delete(node.right, start, orderKey);
+        } else {
+            return merge(node.left, node.right);
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    /**
+     * Returns the event's start and end days as epoch days, earlier first,
+     * or null if the task is not an event with both dates parsed.
+     */
+    static long[] getInterval(Task task) {
+        if (!(task instanceof Event)) {
+            return null;
+        }
+        Event event = (Event) task;
+        if (event.getFromDate() == null || event.getToDate() == null) {
+            return null;
+        }
+        long from = event.getFromDate().toEpochDay();
+        long to = event.getToDate().toEpochDay();
+        return new long[] {Math.min(from, to), Math.max(from, to)};
+    }
+}
@@ -0,0 +1,275 @@
+package claude;
+
+import java.util.ArrayList;
+
+/**
+ * A find command with options: several keywords, matched all together or any of them,
+ * optionally ignoring case or tolerating typos, with results ranked by how well they match.
+ * A keyword matching a whole word of the description scores highest, then one found inside a word,
+ * then a word a few typos away from it; a task's score is the sum over its matching keywords.
+ */
+public class FindQuery {
+    /** The most typos a keyword may tolerate. */
+    public static final int MAX_EDITS = 3;
+
+    private static final String USAGE =
+            "Usage: find KEYWORD... [--ignore-case] [--any] [--fuzzy[=N]] [--limit N] [-- KEYWORD...]";
+    private static final String END_OF_OPTIONS = "--";
+    private static final double WORD_SCORE = 3;
+    private static final double SUBSTRING_SCORE = 2;
+
+    private String[] keywords;
+    private String[] foldedKeywords;
+    private boolean ignoresCase;
+    private boolean matchesAny;
+    private int maxEdits;
+    private int limit;
+
+    private FindQuery() {
+    }
+
+    /**
+     * Returns whether the arguments of a find command use any options.
+     * Without options the whole argument is one keyword, as find has always treated it,
+     * even if it starts with "--" like an option that does not exist.
+     *
+     * @param arguments The arguments of the find command.
+     * @return True if some token is a known option or the "--" that ends the options.
+     */
+    public static boolean hasOptions(String arguments) {
+        Tokenizer tokenizer = new Tokenizer(arguments);
+        String token;
+        while ((token = tokenizer.next()) != null) {
+            if (token.equals(END_OF_OPTIONS) || isOption(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isOption(String token) {
+        return token.equals("--ignore-case") || token.equals("--any") || token.equals("--all")
+                || token.equals("--fuzzy") || token.startsWith("--fuzzy=")
+                || token.equals("--limit") || token.startsWith("--limit=");
+    }
+
+    /**
+     * Parses the arguments of a find command.
+     * Every token after a "--" is a keyword, even if it starts with "--" itself.
+     *
+     * @param arguments The keywords and options.
+     * @return The query.
+     * @throws ClaudeException If an option is unknown or invalid, or no keyword is given.
+     */
+    public static FindQuery parse(String arguments) throws ClaudeException {
+        FindQuery query = new FindQuery();
+        ArrayList<String> keywords = new ArrayList<>();
+        Tokenizer tokenizer = new Tokenizer(arguments);
+        boolean isOptionsEnded = false;
+        String arg;
+        while ((arg = tokenizer.next()) != null) {
+            if (isOptionsEnded || !arg.startsWith("--")) {
+                keywords.add(arg);
+            } else if (arg.equals(END_OF_OPTIONS)) {
+                isOptionsEnded = true;
+            } else if (arg.equals("--ignore-case")) {
+                query.ignoresCase = true;
+            } else if (arg.equals("--any")) {
+                query.matchesAny = true;
+            } else if (arg.equals("--all")) {
+                query.matchesAny = false;
+            } else if (arg.equals("--fuzzy")) {
+                query.maxEdits = 1;
+            } else if (arg.startsWith("--fuzzy=")) {
+                query.maxEdits = parseCount(arg.substring(8), "number of typos");
+                if (query.maxEdits > MAX_EDITS) {
+                    throw new ClaudeException("At most " + MAX_EDITS + " typos can be tolerated. " + USAGE);
+                }
+            } else if (arg.equals("--limit") && tokenizer.hasNext()) {
+                query.limit = parseCount(tokenizer.next(), "limit");
+            } else if (arg.startsWith("--limit=")) {
+                query.limit = parseCount(arg.substring(8), "limit");
+            } else {
+                throw new ClaudeException("Unknown option " + arg + ". To search for it, put -- before it. "
+                        + USAGE);
+            }
+        }
+        if (keywords.isEmpty()) {
+            throw new ClaudeException("Please provide a keyword to search for. " + USAGE);
+        }
+        query.keywords = keywords.toArray(new String[0]);
+        query.foldedKeywords = new String[query.keywords.length];
+        for (int i = 0; i < query.keywords.length; i++) {
+            query.foldedKeywords[i] = fold(query.keywords[i]);
+        }
+        return query;
+    }
+
+    private static int parseCount(String value, String name) throws ClaudeException {
+        try {
+            int count = Integer.parseInt(value);
+            if (count > 0) {
+                return count;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below, like a count that is not positive
+        }
+        throw new ClaudeException("The " + name + " must be a positive whole number. " + USAGE);
+    }
+
+    /**
+     * Returns the keywords to look for.
+     *
+     * @return The keywords, in the order given.
+     */
+    public String[] getKeywords() {
+        return keywords;
+    }
+
+    /**
+     * Returns whether case is ignored when looking for keywords.
+     *
+     * @return True if case is ignored.
+     */
+    public boolean ignoresCase() {
+        return ignoresCase;
+    }
+
+    /**
+     * Returns whether a task matching any keyword is a result, rather than only one matching all.
+     *
+     * @return True if any keyword is enough.
+     */
+    public boolean matchesAny() {
+        return matchesAny;
+    }
+
+    /**
+     * Returns how many typos a keyword tolerates.
+     * Short keywords tolerate fewer, so that a typo cannot make up most of the keyword.
+     *
+     * @param keyword The keyword.
+     * @return The number of single-character insertions, deletions or changes allowed.
+     */
+    public int getMaxEdits(String keyword) {
+        return Math.min(maxEdits, keyword.length() / 3);
+    }
+
+    /**
+     * Returns the largest number of results to show.
+     *
+     * @return The limit, or 0 to show every result.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Scores a task description against this query.
+     *
+     * @param description The description to score.
+     * @return The score, or 0 if the description does not match.
+     */
+    public double score(String description) {
+        String folded = ignoresCase || maxEdits > 0 ? fold(description) : description;
+        double total = 0;
+        for (int i = 0; i < keywords.length; i++) {
+            double score = scoreKeyword(description, folded, i);
+            if (score == 0 && !matchesAny) {
+                return 0;
+            }
+            total += score;
+        }
+        return total;
+    }
+
+    private double scoreKeyword(String description, String folded, int index) {
+        String keyword = ignoresCase ? foldedKeywords[index] : keywords[index];
+        String text = ignoresCase ? folded : description;
+        int position = text.indexOf(keyword);
+        if (position < 0) {
+            return scoreTypos(folded, foldedKeywords[index]);
+        }
+        while (position >= 0) {
+            if (isWordAt(text, position, position + keyword.length())) {
+                return WORD_SCORE;
+            }
+            position = text.indexOf(keyword, position + 1);
+        }
+        return SUBSTRING_SCORE;
+    }
+
+    private static boolean isWordAt(String text, int start, int end) {
+        return (start == 0 || Character.isWhitespace(text.charAt(start - 1)))
+                && (end == text.length() || Character.isWhitespace(text.charAt(end)));
+    }
+
+    private double scoreTypos(String folded, String keyword) {
+        int edits = getMaxEdits(keyword);
+        int best = edits + 1;
+        int length = folded.length();
+        int start = -1;
+        for (int i = 0; i <= length && edits > 0; i++) {
+            boolean isBoundary = i == length || Character.isWhitespace(folded.charAt(i));
+            if (!isBoundary && start < 0) {
+                start = i;
+            } else if (isBoundary && start >= 0) {
+                if (Math.abs(i - start - keyword.length()) <= edits) {
+                    best = Math.min(best, editDistance(keyword, folded.substring(start, i), edits));
+                }
+                start = -1;
+            }
+        }
+        return best <= edits ? 1.0 / (1 + best) : 0;
+    }
+
+    /**
+     * Returns the text with every character in lower case, keeping its length.
+     *
+     * @param text The text to fold.
+     * @return The folded text.
+     */
+    static String fold(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Returns the number of single-character insertions, deletions or changes turning one text
+     * into the other, giving up early once it is sure to exceed the maximum.
+     *
+     * @param a The first text.
+     * @param b The second text.
+     * @param max The largest distance of interest.
+     * @return The distance, or {@code max + 1} if it is larger than {@code max}.
+     */
+    static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1], previous[j]) + 1, previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+}
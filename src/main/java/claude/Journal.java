@@ -0,0 +1,316 @@
+package claude;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Append-only log of task list mutations kept next to the data file.
+ * Each mutation is written as one compact record, so persisting a command costs O(1)
+ * instead of rewriting the whole snapshot. The journal is replayed on top of the
+ * snapshot when loading and cleared whenever a fresh snapshot is written.
+ */
+public class Journal {
+    private static final String BASE = "BASE";
+    private static final String ADD = "ADD";
+    private static final String INSERT = "INSERT";
+    private static final String MARK = "MARK";
+    private static final String UNMARK = "UNMARK";
+    private static final String DELETE = "DELETE";
+    private static final String SEPARATOR = " | ";
+
+    private File file;
+    private FileOutputStream output;
+    private BufferedWriter writer;
+    private int recordCount;
+    private int maxId;
+    private Durability durability;
+
+    /**
+     * Creates a journal backed by the given file.
+     *
+     * @param filePath The path to the journal file.
+     */
+    public Journal(String filePath) {
+        this.file = new File(filePath);
+        this.recordCount = 0;
+        this.durability = Durability.FLUSH;
+    }
+
+    /**
+     * Sets how hard each appended record is pushed to the disk before returning.
+     *
+     * @param durability The durability level.
+     */
+    public void setDurability(Durability durability) {
+        this.durability = durability;
+    }
+
+    /**
+     * Returns the number of mutation records currently in the journal.
+     *
+     * @return The record count.
+     */
+    public int size() {
+        return recordCount;
+    }
+
+    /**
+     * Returns whether the journal file holds anything.
+     *
+     * @return true if there is a journal to replay, false otherwise.
+     */
+    public boolean exists() {
+        return file.length() > 0;
+    }
+
+    /**
+     * Appends a record for a task added to the end of the list.
+     *
+     * @param task The task that was added.
+     * @param snapshotChecksum The checksum of the snapshot this journal applies to.
+     * @throws IOException If the record cannot be written.
+     */
+    public void appendAdd(Task task, long snapshotChecksum) throws IOException {
+        append(ADD + SEPARATOR + Storage.formatTask(task), snapshotChecksum);
+    }
+
+    /**
+     * Appends a record for a task inserted at a position in the list.
+     *
+     * @param index The zero-based index the task was inserted at.
+     * @param task The task that was inserted.
+     * @param snapshotChecksum The checksum of the snapshot this journal applies to.
+     * @throws IOException If the record cannot be written.
+     */
+    public void appendInsert(int index, Task task, long snapshotChecksum) throws IOException {
+        append(INSERT + SEPARATOR + index + SEPARATOR + Storage.formatTask(task), snapshotChecksum);
+    }
+
+    /**
+     * Appends a record for a task marked as done.
+     *
+     * @param index The zero-based index of the task.
+     * @param snapshotChecksum The checksum of the snapshot this journal applies to.
+     * @throws IOException If the record cannot be written.
+     */
+    public void appendMark(int index, long snapshotChecksum) throws IOException {
+        append(MARK + SEPARATOR + index, snapshotChecksum);
+    }
+
+    /**
+     * Appends a record for a task marked as not done.
+     *
+     * @param index The zero-based index of the task.
+     * @param snapshotChecksum The checksum of the snapshot this journal applies to.
+     * @throws IOException If the record cannot be written.
+     */
+    public void appendUnmark(int index, long snapshotChecksum) throws IOException {
+        append(UNMARK + SEPARATOR + index, snapshotChecksum);
+    }
+
+    /**
+     * Appends a record for a deleted task.
+     *
+     * @param index The zero-based index of the task before it was removed.
+     * @param snapshotChecksum The checksum of the snapshot this journal applies to.
+     * @throws IOException If the record cannot be written.
+     */
+    public void appendDelete(int index, long snapshotChecksum) throws IOException {
+        append(DELETE + SEPARATOR + index, snapshotChecksum);
+    }
+
+    private void append(String record, long snapshotChecksum) throws IOException {
+        if (writer == null) {
+            boolean isNew = !file.exists() || file.length() == 0;
+            file.getAbsoluteFile().getParentFile().mkdirs();
+            output = new FileOutputStream(file, true);
+            writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            if (isNew) {
+                writer.write(BASE + SEPARATOR + Long.toHexString(snapshotChecksum));
+                writer.newLine();
+            }
+        }
+        writer.write(record);
+        writer.newLine();
+        if (durability != Durability.NONE) {
+            writer.flush();
+        }
+        if (durability == Durability.FSYNC) {
+            output.getChannel().force(false);
+        }
+        recordCount++;
+    }
+
+    /**
+     * Returns the highest task ID added by the records replayed last, even if the task was deleted again.
+     *
+     * @return The highest ID, or 0 if no record added a task.
+     */
+    public int getMaxId() {
+        return maxId;
+    }
+
+    /**
+     * Replays the journal on top of tasks loaded from the snapshot.
+     * The journal is ignored if it was written against a different snapshot,
+     * which happens when the program stops after a snapshot is written but before
+     * the journal is cleared.
+     *
+     * @param tasks The tasks loaded from the snapshot, modified in place.
+     * @param snapshotChecksum The checksum of the snapshot the tasks were loaded from.
+     * @return The number of records that could not be applied.
+     * @throws IOException If the journal cannot be read.
+     */
+    public int replay(ArrayList<Task> tasks, long snapshotChecksum) throws IOException {
+        return replay(tasks, snapshotChecksum, true);
+    }
+
+    /**
+     * Replays the journal on top of what could be read of a damaged snapshot.
+     * The damage changed the snapshot's checksum, so the journal is replayed without checking it.
+     * Damaged tasks are null entries, so that records refer to the same positions as when they
+     * were written; records that change a damaged task cannot be applied.
+     *
+     * @param tasks The tasks loaded from the snapshot, with null for each damaged task, modified in place.
+     * @return The number of records that could not be applied.
+     * @throws IOException If the journal cannot be read.
+     */
+    public int replayOverDamage(ArrayList<Task> tasks) throws IOException {
+        return replay(tasks, 0, false);
+    }
+
+    private int replay(ArrayList<Task> tasks, long snapshotChecksum, boolean checksBase) throws IOException {
+        recordCount = 0;
+        maxId = 0;
+        if (!file.exists()) {
+            return 0;
+        }
+        int skippedCount = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null) {
+                return 0;
+            }
+            if (checksBase && !header.equals(BASE + SEPARATOR + Long.toHexString(snapshotChecksum))) {
+                clear();
+                return 0;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    apply(line, tasks);
+                    recordCount++;
+                } catch (ClaudeException | IndexOutOfBoundsException | NumberFormatException e) {
+                    skippedCount++;
+                }
+            }
+        }
+        return skippedCount;
+    }
+
+    private void apply(String record, ArrayList<Task> tasks) throws ClaudeException {
+        int separatorIndex = record.indexOf(SEPARATOR);
+        if (separatorIndex < 0) {
+            throw new ClaudeException("Invalid journal record");
+        }
+        String operation = record.substring(0, separatorIndex);
+        String argument = record.substring(separatorIndex + SEPARATOR.length());
+        switch (operation) {
+        case ADD:
+            Task added = Storage.parseTask(argument);
+            tasks.add(added);
+            maxId = Math.max(maxId, added.getId());
+            break;
+        case INSERT:
+            int indexEnd = argument.indexOf(SEPARATOR);
+            if (indexEnd < 0) {
+                throw new ClaudeException("Invalid journal record");
+            }
+            int index = Integer.parseInt(argument.substring(0, indexEnd));
+            Task task = Storage.parseTask(argument.substring(indexEnd + SEPARATOR.length()));
+            tasks.add(index, task);
+            maxId = Math.max(maxId, task.getId());
+            break;
+        case MARK:
+            getIntact(tasks, argument).markAsDone();
+            break;
+        case UNMARK:
+            getIntact(tasks, argument).markAsNotDone();
+            break;
+        case DELETE:
+            tasks.remove(Integer.parseInt(argument));
+            break;
+        default:
+            throw new ClaudeException("Unknown journal operation: " + operation);
+        }
+    }
+
+    private static Task getIntact(ArrayList<Task> tasks, String index) throws ClaudeException {
+        Task task = tasks.get(Integer.parseInt(index));
+        if (task == null) {
+            throw new ClaudeException("The journal changes a damaged task");
+        }
+        return task;
+    }
+
+    /**
+     * Appends the journal to the given file and deletes it, so its records are kept
+     * for fixing things by hand without being replayed again.
+     *
+     * @param path The path of the file to keep the records in.
+     * @throws IOException If the journal cannot be copied.
+     */
+    public void setAside(String path) throws IOException {
+        close();
+        Files.write(Path.of(path), Files.readAllBytes(file.toPath()), StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+        clear();
+    }
+
+    /**
+     * Discards all records, typically right after a fresh snapshot has been written.
+     */
+    public void clear() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                // The file is deleted below, so a failed close loses nothing
+            }
+            writer = null;
+            output = null;
+        }
+        file.delete();
+        recordCount = 0;
+    }
+
+    /**
+     * Writes out any buffered records and closes the journal file.
+     *
+     * @throws IOException If the buffered records cannot be written.
+     */
+    public void close() throws IOException {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } finally {
+            writer = null;
+            output = null;
+        }
+    }
+}
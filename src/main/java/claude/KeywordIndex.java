@@ -0,0 +1,389 @@
+package claude;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from the whitespace-separated terms of task descriptions to the tasks using them.
+ * Each posting list is a sorted array of order keys beside their tasks, so the candidates of several
+ * terms come back in list order by merging their lists.
+ * A trigram index over the vocabulary, ignoring case, narrows down which terms can contain a keyword
+ * or lie a few typos away from it. Terms are numbered when first seen and stay in the vocabulary
+ * after their last task is removed, so removing a task never touches the trigram lists.
+ */
+public class KeywordIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final String PADDING = "\0\0";
+
+    private HashMap<String, Posting> postings;
+    private ArrayList<Posting> vocabulary;
+    private HashMap<String, TermNumbers> termsByGram;
+
+    /**
+     * Creates an empty index.
+     */
+    public KeywordIndex() {
+        this.postings = new HashMap<>();
+        this.vocabulary = new ArrayList<>();
+        this.termsByGram = new HashMap<>();
+    }
+
+    /**
+     * The tasks using a term, ordered by order key.
+     */
+    private static class Posting {
+        private String term;
+        private long[] keys;
+        private Task[] tasks;
+        private int size;
+
+        Posting(String term, int capacity) {
+            this.term = term;
+            this.keys = new long[capacity];
+            this.tasks = new Task[capacity];
+        }
+
+        void add(long key, Task task) {
+            int position = size;
+            if (size > 0 && keys[size - 1] >= key) {
+                // Only tasks put back by undo land before the end
+                position = Arrays.binarySearch(keys, 0, size, key);
+                if (position >= 0) {
+                    tasks[position] = task;
+                    return;
+                }
+                position = -position - 1;
+            }
+            if (size == keys.length) {
+                int capacity = Math.max(2, size + (size >> 1));
+                keys = Arrays.copyOf(keys, capacity);
+                tasks = Arrays.copyOf(tasks, capacity);
+            }
+            System.arraycopy(keys, position, keys, position + 1, size - position);
+            System.arraycopy(tasks, position, tasks, position + 1, size - position);
+            keys[position] = key;
+            tasks[position] = task;
+            size++;
+        }
+
+        void remove(long key) {
+            int position = Arrays.binarySearch(keys, 0, size, key);
+            if (position < 0) {
+                return;
+            }
+            size--;
+            System.arraycopy(keys, position + 1, keys, position, size - position);
+            System.arraycopy(tasks, position + 1, tasks, position, size - position);
+            tasks[size] = null;
+        }
+
+        ArrayList<Task> toList() {
+            return new ArrayList<>(Arrays.asList(tasks).subList(0, size));
+        }
+
+        static Posting union(Posting a, Posting b) {
+            Posting result = new Posting(null, a.size + b.size);
+            int i = 0;
+            int j = 0;
+            while (i < a.size || j < b.size) {
+                if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                    result.append(a, i++);
+                } else if (i == a.size || b.keys[j] < a.keys[i]) {
+                    result.append(b, j++);
+                } else {
+                    result.append(a, i++);
+                    j++;
+                }
+            }
+            return result;
+        }
+
+        static Posting intersect(Posting a, Posting b) {
+            Posting result = new Posting(null, Math.min(a.size, b.size));
+            int i = 0;
+            int j = 0;
+            while (i < a.size && j < b.size) {
+                if (a.keys[i] < b.keys[j]) {
+                    i++;
+                } else if (b.keys[j] < a.keys[i]) {
+                    j++;
+                } else {
+                    result.append(a, i++);
+                    j++;
+                }
+            }
+            return result;
+        }
+
+        private void append(Posting source, int position) {
+            keys[size] = source.keys[position];
+            tasks[size] = source.tasks[position];
+            size++;
+        }
+    }
+
+    /**
+     * The numbers of the terms containing a trigram, in the order the terms were first seen.
+     */
+    private static class TermNumbers {
+        private int[] numbers = new int[4];
+        private int size;
+
+        void add(int number) {
+            if (size > 0 && numbers[size - 1] == number) {
+                // The trigram occurs twice in the same term
+                return;
+            }
+            if (size == numbers.length) {
+                numbers = Arrays.copyOf(numbers, size * 2);
+            }
+            numbers[size++] = number;
+        }
+    }
+
+    /**
+     * Indexes the terms of a task's description.
+     *
+     * @param task The task to index.
+     * @param orderKey The key giving the task's position relative to other tasks.
+     */
+    public void add(Task task, long orderKey) {
+        for (String term : terms(task.getDescription())) {
+            Posting posting = postings.get(term);
+            if (posting == null) {
+                posting = new Posting(term, 1);
+                postings.put(term, posting);
+                int number = vocabulary.size();
+                vocabulary.add(posting);
+                String padded = pad(FindQuery.fold(term));
+                for (int i = 0; i + GRAM_LENGTH <= padded.length(); i++) {
+                    termsByGram.computeIfAbsent(padded.substring(i, i + GRAM_LENGTH), k -> new TermNumbers())
+                            .add(number);
+                }
+            }
+            posting.add(orderKey, task);
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task The task to remove.
+     * @param orderKey The key the task was indexed under.
+     */
+    public void remove(Task task, long orderKey) {
+        for (String term : terms(task.getDescription())) {
+            Posting posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(orderKey);
+            }
+        }
+    }
+
+    /**
+     * Returns the tasks whose description may contain the keyword, in list order.
+     * Every task that does contain it is included; callers confirm the match themselves.
+     *
+     * @param keyword The non-blank keyword to look for.
+     * @return The candidate tasks.
+     */
+    public List<Task> candidates(String keyword) {
+        return unionAll(termsContaining(longestPiece(keyword), false)).toList();
+    }
+
+    /**
+     * Returns how many tasks {@link #candidates(String)} would return for the keyword, at most.
+     *
+     * @param keyword The non-blank keyword to look for.
+     * @return The upper bound on the number of candidates.
+     */
+    public int estimate(String keyword) {
+        return count(termsContaining(longestPiece(keyword), false));
+    }
+
+    private static int count(List<Posting> lists) {
+        long count = 0;
+        for (Posting posting : lists) {
+            count += posting.size;
+        }
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    // A match must contain the longest whitespace-free piece of the keyword inside a single term
+    private static String longestPiece(String keyword) {
+        String probe = "";
+        for (String piece : terms(keyword)) {
+            if (piece.length() > probe.length()) {
+                probe = piece;
+            }
+        }
+        return probe;
+    }
+
+    /**
+     * Returns the tasks that may match a find query, in list order.
+     * Every task that does match is included; callers score the candidates themselves.
+     * When the query would bring up more candidates than are worth collecting, this gives up early,
+     * as scoring every task is then cheaper.
+     *
+     * @param query The query.
+     * @param maxCount The most candidates worth collecting.
+     * @return The candidate tasks, or null if there would be more than maxCount.
+     */
+    public List<Task> candidates(FindQuery query, int maxCount) {
+        ArrayList<ArrayList<Posting>> matchingTerms = new ArrayList<>();
+        long estimate = query.matchesAny() ? 0 : Long.MAX_VALUE;
+        for (String keyword : query.getKeywords()) {
+            ArrayList<Posting> lists = termsContaining(keyword, query.ignoresCase());
+            int edits = query.getMaxEdits(keyword);
+            if (edits > 0) {
+                lists.addAll(termsNear(FindQuery.fold(keyword), edits));
+            }
+            long count = count(lists);
+            estimate = query.matchesAny() ? estimate + count : Math.min(estimate, count);
+            matchingTerms.add(lists);
+        }
+        if (estimate > maxCount) {
+            return null;
+        }
+        Posting result = null;
+        for (ArrayList<Posting> lists : matchingTerms) {
+            Posting keywordCandidates = unionAll(lists);
+            if (result == null) {
+                result = keywordCandidates;
+            } else if (query.matchesAny()) {
+                result = Posting.union(result, keywordCandidates);
+            } else {
+                result = Posting.intersect(result, keywordCandidates);
+            }
+        }
+        return result.toList();
+    }
+
+    /**
+     * Merges posting lists pairwise, round by round, so k lists of n tasks in all take O(n log k).
+     */
+    private static Posting unionAll(List<Posting> lists) {
+        ArrayDeque<Posting> queue = new ArrayDeque<>(lists);
+        if (queue.isEmpty()) {
+            return new Posting(null, 0);
+        }
+        while (queue.size() > 1) {
+            queue.addLast(Posting.union(queue.pollFirst(), queue.pollFirst()));
+        }
+        return queue.getFirst();
+    }
+
+    private ArrayList<Posting> termsContaining(String probe, boolean ignoresCase) {
+        String folded = FindQuery.fold(probe);
+        if (probe.length() < GRAM_LENGTH) {
+            return scanVocabulary(ignoresCase ? folded : probe, ignoresCase);
+        }
+        TermNumbers smallest = null;
+        for (String gram : grams(folded)) {
+            TermNumbers gramTerms = termsByGram.get(gram);
+            if (gramTerms == null) {
+                return new ArrayList<>();
+            }
+            if (smallest == null || gramTerms.size < smallest.size) {
+                smallest = gramTerms;
+            }
+        }
+        ArrayList<Posting> matches = new ArrayList<>();
+        for (int i = 0; i < smallest.size; i++) {
+            Posting posting = vocabulary.get(smallest.numbers[i]);
+            if (posting.size > 0 && (ignoresCase ? FindQuery.fold(posting.term).contains(folded)
+                    : posting.term.contains(probe))) {
+                matches.add(posting);
+            }
+        }
+        return matches;
+    }
+
+    private ArrayList<Posting> scanVocabulary(String probe, boolean ignoresCase) {
+        ArrayList<Posting> matches = new ArrayList<>();
+        for (Posting posting : vocabulary) {
+            if (posting.size > 0 && (ignoresCase ? FindQuery.fold(posting.term) : posting.term).contains(probe)) {
+                matches.add(posting);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the terms within the given number of typos of a case-folded keyword.
+     * Each typo touches at most three trigrams, so a close term shares all but that many of the
+     * keyword's padded trigrams; only terms sharing enough of them are compared in full.
+     */
+    private ArrayList<Posting> termsNear(String folded, int edits) {
+        Set<String> keywordGrams = grams(pad(folded));
+        int minShared = keywordGrams.size() - GRAM_LENGTH * edits;
+        List<Posting> candidates;
+        if (minShared <= 0) {
+            candidates = vocabulary;
+        } else {
+            HashMap<Integer, Integer> shared = new HashMap<>();
+            for (String gram : keywordGrams) {
+                TermNumbers gramTerms = termsByGram.get(gram);
+                for (int i = 0; gramTerms != null && i < gramTerms.size; i++) {
+                    shared.merge(gramTerms.numbers[i], 1, Integer::sum);
+                }
+            }
+            candidates = new ArrayList<>();
+            for (Map.Entry<Integer, Integer> entry : shared.entrySet()) {
+                if (entry.getValue() >= minShared) {
+                    candidates.add(vocabulary.get(entry.getKey()));
+                }
+            }
+        }
+        ArrayList<Posting> matches = new ArrayList<>();
+        for (Posting posting : candidates) {
+            if (posting.size > 0 && Math.abs(posting.term.length() - folded.length()) <= edits
+                    && FindQuery.editDistance(folded, FindQuery.fold(posting.term), edits) <= edits) {
+                matches.add(posting);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Splits text into its whitespace-separated terms, in order; a repeated term comes up each time.
+     */
+    static ArrayList<String> terms(String text) {
+        ArrayList<String> terms = new ArrayList<>();
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean isBoundary = i == length || Character.isWhitespace(text.charAt(i));
+            if (isBoundary && start >= 0) {
+                terms.add(text.substring(start, i));
+                start = -1;
+            } else if (!isBoundary && start < 0) {
+                start = i;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Marks the start and end of a term, so that its first and last letters get trigrams of their own.
+     * Padded terms yield every trigram of the bare term too, so substring lookups work as before.
+     */
+    private static String pad(String term) {
+        return PADDING + term + PADDING;
+    }
+
+    private static Set<String> grams(String term) {
+        HashSet<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= term.length(); i++) {
+            grams.add(term.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+}
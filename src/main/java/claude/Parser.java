@@ -1,14 +1,66 @@
 package claude;
 
+import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.time.YearMonth;
-import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 
 /**
  * Deals with making sense of the user command.
- * Parses user input and executes the corresponding operation on the task list.
+ * Looks up the command keyword in a registry and runs the matching command on the task list.
  */
 public class Parser {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final CommandRegistry COMMANDS = createDefaultCommands();
+
+    private static CommandRegistry createDefaultCommands() {
+        CommandRegistry commands = new CommandRegistry();
+        commands.registerReadOnly("list", Parser::executeList, "ls");
+        commands.register("mark", Parser::executeMark);
+        commands.register("unmark", Parser::executeUnmark);
+        commands.register("todo", Parser::executeTodo);
+        commands.register("deadline", Parser::executeDeadline);
+        commands.register("event", Parser::executeEvent);
+        commands.register("delete", Parser::executeDelete, "rm");
+        commands.registerReadOnly("due", (arguments, tasks, ui, storage) -> executeDue(arguments, tasks, ui));
+        commands.registerReadOnly("events",
+                (arguments, tasks, ui, storage) -> executeEvents(arguments, tasks, ui));
+        commands.registerReadOnly("find", (arguments, tasks, ui, storage) -> executeFind(arguments, tasks, ui),
+                "search");
+        commands.registerReadOnly("query",
+                (arguments, tasks, ui, storage) -> executeQuery(arguments, tasks, ui));
+        commands.register("undo", Parser::executeUndo);
+        commands.register("redo", Parser::executeRedo);
+        return commands;
+    }
+
+    /**
+     * Returns the registry of commands, so new commands can be added.
+     *
+     * @return The command registry used by {@link #parseAndExecute}.
+     */
+    public static CommandRegistry getCommands() {
+        return COMMANDS;
+    }
+
+    /**
+     * Returns whether the command only reads the task list, so it may run alongside other readers.
+     * Unknown commands count as read-only, as they fail without touching anything.
+     *
+     * @param input The raw user input string.
+     * @return True if the command does not change the task list or storage.
+     */
+    public static boolean isReadOnly(String input) {
+        String keyword = getKeyword(input);
+        return COMMANDS.isReadOnly(keyword) || COMMANDS.get(keyword) == null;
+    }
+
+    private static String getKeyword(String input) {
+        int space = input.indexOf(' ');
+        return space < 0 ? input : input.substring(0, space);
+    }
 
     /**
      * Parses and executes the user command.
@@ -21,35 +73,98 @@ public class Parser {
      */
     public static void parseAndExecute(String input, TaskList tasks, Ui ui,
             Storage storage) throws ClaudeException {
-        if (input.equals("list")) {
-            ui.showTaskList(tasks);
-        } else if (input.startsWith("mark ")) {
-            executeMark(input, tasks, ui, storage);
-        } else if (input.startsWith("unmark ")) {
-            executeUnmark(input, tasks, ui, storage);
-        } else if (input.equals("todo") || input.startsWith("todo ")) {
-            executeTodo(input, tasks, ui, storage);
-        } else if (input.equals("deadline") || input.startsWith("deadline ")) {
-            executeDeadline(input, tasks, ui, storage);
-        } else if (input.equals("event") || input.startsWith("event ")) {
-            executeEvent(input, tasks, ui, storage);
-        } else if (input.startsWith("delete ")) {
-            executeDelete(input, tasks, ui, storage);
-        } else if (input.equals("due") || input.startsWith("due ")) {
-            executeDue(input, tasks, ui);
-        } else if (input.equals("find") || input.startsWith("find ")) {
-            executeFind(input, tasks, ui);
-        } else {
+        int space = input.indexOf(' ');
+        String keyword = getKeyword(input);
+        Command command = COMMANDS.get(keyword);
+        if (command == null) {
             throw new ClaudeException("I don't know what that means :-(");
         }
+        String arguments = space < 0 ? "" : input.substring(space + 1).trim();
+        try {
+            command.execute(arguments, tasks, ui, storage);
+        } finally {
+            // Saving errors belong with the command that caused them, not with whatever is printed next
+            ui.showMessages(storage.takeMessages());
+        }
     }
 
-    private static int parseTaskIndex(String input, int prefixLength,
-            TaskList tasks) throws ClaudeException {
-        String indexStr = input.substring(prefixLength).trim();
+    private static void executeList(String arguments, TaskList tasks, Ui ui,
+            Storage storage) throws ClaudeException {
+        if (arguments.isEmpty()) {
+            ui.showTaskList(tasks);
+            return;
+        }
+        String usage = "Usage: list [PAGE] [--page-size N] [--done | --pending] [--stream] [--ids]";
+        Tokenizer tokenizer = new Tokenizer(arguments);
+        int page = 1;
+        int pageSize = DEFAULT_PAGE_SIZE;
+        StatusFilter filter = StatusFilter.ALL;
+        boolean isStreaming = false;
+        boolean showsIds = false;
+        String arg;
+        while ((arg = tokenizer.next()) != null) {
+            if (arg.equals("--done")) {
+                filter = StatusFilter.DONE;
+            } else if (arg.equals("--pending")) {
+                filter = StatusFilter.PENDING;
+            } else if (arg.equals("--stream")) {
+                isStreaming = true;
+            } else if (arg.equals("--ids")) {
+                showsIds = true;
+            } else if (arg.equals("--page-size") && tokenizer.hasNext()) {
+                pageSize = parsePositive(tokenizer.next(), "page size");
+            } else if (arg.startsWith("--page-size=")) {
+                pageSize = parsePositive(arg.substring(12), "page size");
+            } else if (!arg.startsWith("--")) {
+                page = parsePositive(arg, "page number");
+            } else {
+                throw new ClaudeException("Unknown option " + arg + ". " + usage);
+            }
+        }
+        if (isStreaming) {
+            ui.streamTaskList(tasks, filter, showsIds);
+            return;
+        }
+        int matchCount = tasks.count(filter);
+        int pageCount = Math.max(1, (matchCount + pageSize - 1) / pageSize);
+        if (page > pageCount) {
+            throw new ClaudeException("Page " + page + " is out of range. There "
+                    + (pageCount == 1 ? "is 1 page." : "are " + pageCount + " pages."));
+        }
+        ui.showTaskPage(tasks, filter, page, pageSize, matchCount, showsIds);
+    }
+
+    private static int parsePositive(String value, String name) throws ClaudeException {
+        try {
+            int number = Integer.parseInt(value);
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new ClaudeException("Please provide a valid " + name + " (a positive number).");
+    }
+
+    /**
+     * Parses a task number, or a task ID written as "#ID", into a zero-based index.
+     */
+    private static int parseTaskIndex(String arguments, TaskList tasks) throws ClaudeException {
+        if (arguments.startsWith("#")) {
+            int taskIndex;
+            try {
+                taskIndex = tasks.indexOfId(Integer.parseInt(arguments.substring(1)));
+            } catch (NumberFormatException e) {
+                throw new ClaudeException("Please provide a valid task ID.");
+            }
+            if (taskIndex < 0) {
+                throw new ClaudeException("There is no task " + arguments + " in your list.");
+            }
+            return taskIndex;
+        }
         int taskIndex;
         try {
-            taskIndex = Integer.parseInt(indexStr) - 1;
+            taskIndex = Integer.parseInt(arguments) - 1;
         } catch (NumberFormatException e) {
             throw new ClaudeException("Please provide a valid task number.");
         }
@@ -66,89 +181,177 @@ public class Parser {
         return taskIndex;
     }
 
-    private static void executeMark(String input, TaskList tasks, Ui ui,
+    /**
+     * Selects the tasks named by a bulk selector: numbers and ranges such as "1-5,8",
+     * "done", "pending", or "find KEYWORD".
+     *
+     * @param arguments The selector.
+     * @param tasks The task list to select from.
+     * @return The zero-based indices of the selected tasks in ascending order,
+     *     or null if the arguments are not a bulk selector but a single task number.
+     * @throws ClaudeException If the selector is invalid or selects no tasks.
+     */
+    private static int[] parseSelection(String arguments, TaskList tasks) throws ClaudeException {
+        if (arguments.isEmpty() || isInteger(arguments.startsWith("#") ? arguments.substring(1) : arguments)) {
+            return null;
+        }
+        BitSet selected = new BitSet(tasks.size());
+        if (arguments.equals("done") || arguments.equals("pending")) {
+            boolean isDone = arguments.equals("done");
+            int index = 0;
+            for (Task task : tasks) {
+                if (task.isDone() == isDone) {
+                    selected.set(index);
+                }
+                index++;
+            }
+        } else if (arguments.equals("find") || arguments.startsWith("find ")) {
+            String keyword = arguments.substring(4).trim();
+            if (keyword.isEmpty()) {
+                throw new ClaudeException("Please provide a keyword to search for.");
+            }
+            int index = 0;
+            for (Task task : tasks) {
+                if (task.getDescription().contains(keyword)) {
+                    selected.set(index);
+                }
+                index++;
+            }
+        } else {
+            int start = 0;
+            while (start <= arguments.length()) {
+                int end = arguments.indexOf(',', start);
+                if (end < 0) {
+                    end = arguments.length();
+                }
+                String part = arguments.substring(start, end).trim();
+                int dashIndex = part.indexOf('-', 1);
+                int first = parseTaskIndex(dashIndex < 0 ? part : part.substring(0, dashIndex).trim(), tasks);
+                int last = dashIndex < 0 ? first : parseTaskIndex(part.substring(dashIndex + 1).trim(), tasks);
+                if (first > last) {
+                    throw new ClaudeException("The range " + part + " goes backwards. "
+                            + "Try " + (last + 1) + "-" + (first + 1) + " instead.");
+                }
+                selected.set(first, last + 1);
+                start = end + 1;
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new ClaudeException("No tasks match \"" + arguments + "\".");
+        }
+        return selected.stream().toArray();
+    }
+
+    private static boolean isInteger(String value) {
+        try {
+            Integer.parseInt(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Marks the selected tasks as done or not done, skipping those that already are,
+     * and persists the change once.
+     */
+    private static void executeBulkStatus(int[] selected, boolean isDone, TaskList tasks, Ui ui,
             Storage storage) throws ClaudeException {
-        int taskIndex = parseTaskIndex(input, 5, tasks);
-        Task task = tasks.get(taskIndex);
-        if (task.isDone()) {
+        int[] changedIndices = new int[selected.length];
+        ArrayList<Task> changed = new ArrayList<>();
+        for (int index : selected) {
+            if (tasks.setDone(index, isDone)) {
+                changedIndices[changed.size()] = index;
+                changed.add(tasks.get(index));
+            }
+        }
+        if (changed.isEmpty()) {
+            throw new ClaudeException(isDone ? "Those tasks are all done already! No need to mark them again."
+                    : "None of those tasks are done yet! No need to unmark them.");
+        }
+        storage.recordAll(tasks);
+        tasks.getHistory().record(new UndoLog.Operation(isDone ? UndoLog.Type.MARK : UndoLog.Type.UNMARK,
+                Arrays.copyOf(changedIndices, changed.size()), changed.toArray(new Task[0])));
+        ui.showTasksMarked(changed, isDone, selected.length - changed.size());
+    }
+
+    private static void executeMark(String arguments, TaskList tasks, Ui ui,
+            Storage storage) throws ClaudeException {
+        int[] selected = parseSelection(arguments, tasks);
+        if (selected != null) {
+            executeBulkStatus(selected, true, tasks, ui, storage);
+            return;
+        }
+        int taskIndex = parseTaskIndex(arguments, tasks);
+        if (!tasks.setDone(taskIndex, true)) {
             throw new ClaudeException("That task is already done! "
                     + "No need to mark it again.");
         }
-        task.markAsDone();
-        storage.save(tasks);
+        Task task = tasks.get(taskIndex);
+        storage.recordStatus(tasks, taskIndex);
+        tasks.getHistory().record(new UndoLog.Operation(UndoLog.Type.MARK, taskIndex, task));
         ui.showTaskMarked(task);
     }
 
-    private static void executeUnmark(String input, TaskList tasks, Ui ui,
+    private static void executeUnmark(String arguments, TaskList tasks, Ui ui,
             Storage storage) throws ClaudeException {
-        int taskIndex = parseTaskIndex(input, 7, tasks);
-        Task task = tasks.get(taskIndex);
-        if (!task.isDone()) {
+        int[] selected = parseSelection(arguments, tasks);
+        if (selected != null) {
+            executeBulkStatus(selected, false, tasks, ui, storage);
+            return;
+        }
+        int taskIndex = parseTaskIndex(arguments, tasks);
+        if (!tasks.setDone(taskIndex, false)) {
             throw new ClaudeException("That task isn't done yet! "
                     + "No need to unmark it.");
         }
-        task.markAsNotDone();
-        storage.save(tasks);
+        Task task = tasks.get(taskIndex);
+        storage.recordStatus(tasks, taskIndex);
+        tasks.getHistory().record(new UndoLog.Operation(UndoLog.Type.UNMARK, taskIndex, task));
         ui.showTaskUnmarked(task);
     }
 
-    private static void executeTodo(String input, TaskList tasks, Ui ui,
+    private static void executeTodo(String description, TaskList tasks, Ui ui,
             Storage storage) throws ClaudeException {
-        if (input.trim().equals("todo")) {
-            throw new ClaudeException("The description of a todo cannot be empty.");
-        }
-        String description = input.substring(5).trim();
         if (description.isEmpty()) {
             throw new ClaudeException("The description of a todo cannot be empty.");
         }
-        if (description.contains("|")) {
+        if (description.indexOf('|') >= 0) {
             throw new ClaudeException("Description cannot contain the '|' character.");
         }
         Task task = new Todo(description);
         tasks.add(task);
-        storage.save(tasks);
+        storage.recordAdd(tasks, task);
+        tasks.getHistory().record(new UndoLog.Operation(UndoLog.Type.ADD, tasks.size() - 1, task));
         ui.showTaskAdded(task, tasks.size());
     }
 
-    private static void executeDeadline(String input, TaskList tasks, Ui ui,
+    private static void executeDeadline(String content, TaskList tasks, Ui ui,
             Storage storage) throws ClaudeException {
-        if (input.trim().equals("deadline")) {
-            throw new ClaudeException("The description of a deadline cannot be empty.");
-        }
-        String content = input.substring(9).trim();
-        if (content.isEmpty()) {
-            throw new ClaudeException("The description of a deadline cannot be empty.");
-        }
-        if (content.startsWith("/by ")) {
+        if (content.isEmpty() || content.startsWith("/by ")) {
             throw new ClaudeException("The description of a deadline cannot be empty.");
         }
-        if (!content.contains(" /by ")) {
+        int byIndex = content.indexOf(" /by ");
+        if (byIndex < 0) {
             throw new ClaudeException("A deadline needs a /by clause. "
                     + "Usage: deadline <description> /by <date>");
         }
-        String[] parts = content.split(" /by ", 2);
-        String description = parts[0].trim();
-        String by = parts[1].trim();
+        String description = content.substring(0, byIndex).trim();
+        String by = content.substring(byIndex + 5).trim();
         if (description.isEmpty()) {
             throw new ClaudeException("The description of a deadline cannot be empty.");
         }
-        if (description.contains("|")) {
+        if (description.indexOf('|') >= 0) {
             throw new ClaudeException("Description cannot contain the '|' character.");
         }
         if (by.isEmpty()) {
             throw new ClaudeException("The /by date of a deadline cannot be empty.");
         }
-        boolean invalidDate = false;
-        if (by.matches("\\d{4}-\\d{2}-\\d{2}")) {
-            try {
-                LocalDate.parse(by);
-            } catch (DateTimeParseException e) {
-                invalidDate = true;
-            }
-        }
+        boolean invalidDate = Tokenizer.isIsoDate(by) && parseDate(by) == null;
         Task task = new Deadline(description, by);
         tasks.add(task);
-        storage.save(tasks);
+        storage.recordAdd(tasks, task);
+        tasks.getHistory().record(new UndoLog.Operation(UndoLog.Type.ADD, tasks.size() - 1, task));
         ui.showTaskAdded(task, tasks.size());
         if (invalidDate) {
             ui.showMessage("Hmm, " + by + " doesn't look like a valid date. "
@@ -156,28 +359,21 @@ public class Parser {
         }
     }
 
-    private static void executeEvent(String input, TaskList tasks, Ui ui,
+    private static void executeEvent(String content, TaskList tasks, Ui ui,
             Storage storage) throws ClaudeException {
-        if (input.trim().equals("event")) {
-            throw new ClaudeException("The description of an event cannot be empty.");
-        }
-        String content = input.substring(6).trim();
-        if (content.isEmpty()) {
+        if (content.isEmpty() || content.startsWith("/from ") || content.startsWith("/to ")) {
             throw new ClaudeException("The description of an event cannot be empty.");
         }
-        if (content.startsWith("/from ") || content.startsWith("/to ")) {
-            throw new ClaudeException("The description of an event cannot be empty.");
-        }
-        if (!content.contains(" /from ")) {
+        int fromIndex = content.indexOf(" /from ");
+        if (fromIndex < 0) {
             throw new ClaudeException("An event needs a /from clause. "
                     + "Usage: event <description> /from <start> /to <end>");
         }
-        if (!content.contains(" /to ")) {
+        int toIndex = content.indexOf(" /to ");
+        if (toIndex < 0) {
             throw new ClaudeException("An event needs a /to clause. "
                     + "Usage: event <description> /from <start> /to <end>");
         }
-        int fromIndex = content.indexOf(" /from ");
-        int toIndex = content.indexOf(" /to ");
         if (toIndex < fromIndex) {
             throw new ClaudeException("/from must come before /to. "
                     + "Usage: event <description> /from <start> /to <end>");
@@ -188,7 +384,7 @@ public class Parser {
         if (description.isEmpty()) {
             throw new ClaudeException("The description of an event cannot be empty.");
         }
-        if (description.contains("|")) {
+        if (description.indexOf('|') >= 0) {
             throw new ClaudeException("Description cannot contain the '|' character.");
         }
         if (from.isEmpty()) {
@@ -197,89 +393,271 @@ public class Parser {
         if (to.isEmpty()) {
             throw new ClaudeException("The /to time of an event cannot be empty.");
         }
+        if (from.indexOf('|') >= 0 || to.indexOf('|') >= 0) {
+            throw new ClaudeException("Event times cannot contain the '|' character.");
+        }
         Task task = new Event(description, from, to);
         tasks.add(task);
-        storage.save(tasks);
+        storage.recordAdd(tasks, task);
+        tasks.getHistory().record(new UndoLog.Operation(UndoLog.Type.ADD, tasks.size() - 1, task));
         ui.showTaskAdded(task, tasks.size());
     }
 
-    private static void executeDelete(String input, TaskList tasks, Ui ui,
+    private static void executeDelete(String arguments, TaskList tasks, Ui ui,
             Storage storage) throws ClaudeException {
         if (tasks.size() == 0) {
             throw new ClaudeException("There's nothing left to delete. "
                     + "Do you want to delete me?!");
         }
-        int taskIndex = parseTaskIndex(input, 7, tasks);
+        int[] selected = parseSelection(arguments, tasks);
+        if (selected != null) {
+            ArrayList<Task> removed = tasks.deleteAll(selected);
+            storage.recordAll(tasks);
+            tasks.getHistory().record(new UndoLog.Operation(UndoLog.Type.DELETE, selected,
+                    removed.toArray(new Task[0])));
+            ui.showTasksDeleted(removed, tasks.size());
+            return;
+        }
+        int taskIndex = parseTaskIndex(arguments, tasks);
         Task removed = tasks.delete(taskIndex);
-        storage.save(tasks);
+        storage.recordDelete(tasks, taskIndex);
+        tasks.getHistory().record(new UndoLog.Operation(UndoLog.Type.DELETE, taskIndex, removed));
         ui.showTaskDeleted(removed, tasks.size());
     }
 
-    private static void executeDue(String input, TaskList tasks, Ui ui) throws ClaudeException {
-        if (input.trim().equals("due")) {
-            throw new ClaudeException("Please provide a date, month, or date range. "
-                    + "Usage: due <yyyy-mm-dd> | due <yyyy-mm> | due <start> <end>");
+    private static void executeUndo(String arguments, TaskList tasks, Ui ui,
+            Storage storage) throws ClaudeException {
+        if (!arguments.isEmpty()) {
+            throw new ClaudeException("Usage: undo");
         }
-        String content = input.substring(4).trim();
-        String[] parts = content.split("\\s+");
+        ui.showUndone(tasks.getHistory().undo(tasks, storage));
+    }
 
-        LocalDate start;
-        LocalDate end;
+    private static void executeRedo(String arguments, TaskList tasks, Ui ui,
+            Storage storage) throws ClaudeException {
+        if (!arguments.isEmpty()) {
+            throw new ClaudeException("Usage: redo");
+        }
+        ui.showRedone(tasks.getHistory().redo(tasks, storage));
+    }
 
-        if (parts.length == 1) {
-            // Try as a specific date first, then as a month
-            try {
-                start = LocalDate.parse(parts[0]);
-                end = start;
-            } catch (DateTimeParseException e) {
-                try {
-                    YearMonth ym = YearMonth.parse(parts[0]);
-                    start = ym.atDay(1);
-                    end = ym.atEndOfMonth();
-                } catch (DateTimeParseException e2) {
-                    throw new ClaudeException(getInvalidDateMessage(parts[0]));
-                }
+    private static void executeDue(String content, TaskList tasks, Ui ui) throws ClaudeException {
+        String usage = "Usage: due <yyyy-mm-dd> | due <yyyy-mm> | due <start> <end> [--events]";
+        boolean includesEvents = content.endsWith(" --events") || content.equals("--events");
+        if (includesEvents) {
+            content = content.substring(0, content.length() - "--events".length()).trim();
+        }
+        if (content.isEmpty()) {
+            throw new ClaudeException("Please provide a date, month, or date range. " + usage);
+        }
+        LocalDate[] range = parseDateRange(content, usage);
+        TaskList matching = tasks.findDue(range[0], range[1], includesEvents);
+        ui.showDueList(matching, range[0], range[1], includesEvents);
+    }
+
+    private static void executeEvents(String content, TaskList tasks, Ui ui) throws ClaudeException {
+        String usage = "Usage: events <yyyy-mm-dd> | events <yyyy-mm> | events <start> <end>";
+        if (content.isEmpty()) {
+            throw new ClaudeException("Please provide a date, month, or date range. " + usage);
+        }
+        LocalDate[] range = parseDateRange(content, usage);
+        TaskList matching = tasks.findEvents(range[0], range[1]);
+        ui.showEventList(matching, range[0], range[1]);
+    }
+
+    private static void executeQuery(String arguments, TaskList tasks, Ui ui) throws ClaudeException {
+        String usage = "Usage: query CONDITION... [--explain], where a condition is "
+                + "type:todo|deadline|event, done:yes|no, text:WORD, "
+                + "or due or during followed by :, <, <=, > or >= and a date, a month, or START..END";
+        TaskQuery query = new TaskQuery();
+        boolean isExplained = false;
+        Tokenizer tokenizer = new Tokenizer(arguments);
+        String term;
+        while ((term = tokenizer.next()) != null) {
+            if (term.equals("--explain")) {
+                isExplained = true;
+                continue;
             }
-        } else if (parts.length == 2) {
-            try {
-                start = LocalDate.parse(parts[0]);
-            } catch (DateTimeParseException e) {
-                throw new ClaudeException(getInvalidDateMessage(parts[0]));
+            int opStart = 0;
+            while (opStart < term.length() && Character.isLetter(term.charAt(opStart))) {
+                opStart++;
             }
-            try {
-                end = LocalDate.parse(parts[1]);
-            } catch (DateTimeParseException e) {
-                throw new ClaudeException(getInvalidDateMessage(parts[1]));
+            char opChar = opStart < term.length() ? term.charAt(opStart) : ' ';
+            int valueStart = opStart + 1;
+            if (opChar != ':' && valueStart < term.length() && term.charAt(valueStart) == '=') {
+                valueStart++;
+            }
+            if (opStart == 0 || ":<>".indexOf(opChar) < 0 || valueStart >= term.length()) {
+                throw new ClaudeException("I can't read the condition " + term + ". " + usage);
             }
+            String field = term.substring(0, opStart);
+            String op = term.substring(opStart, valueStart);
+            String value = term.substring(valueStart);
+            if (field.equals("due") || field.equals("during")) {
+                LocalDate[] range = parseQueryRange(op, value, usage);
+                query.requireDates(field.equals("due") ? TaskQuery.Kind.DUE : TaskQuery.Kind.DURING,
+                        range[0], range[1]);
+            } else if (!op.equals(":")) {
+                throw new ClaudeException("Only due and during can be compared with " + op + ". " + usage);
+            } else if (field.equals("type")) {
+                query.requireType(parseTaskType(value, usage));
+            } else if (field.equals("done") && (value.equals("yes") || value.equals("no"))) {
+                query.requireDone(value.equals("yes"));
+            } else if (field.equals("text")) {
+                query.requireText(value);
+            } else {
+                throw new ClaudeException("I can't read the condition " + term + ". " + usage);
+            }
+        }
+        if (query.isEmpty()) {
+            throw new ClaudeException("Please provide at least one condition. " + usage);
+        }
+        if (isExplained) {
+            ui.showQueryPlan(query.explain(tasks));
+        }
+        ui.showQueryResults(query.run(tasks));
+    }
+
+    private static Class<? extends Task> parseTaskType(String value, String usage) throws ClaudeException {
+        switch (value.toLowerCase()) {
+        case "t":
+        case "todo":
+            return Todo.class;
+        case "d":
+        case "deadline":
+            return Deadline.class;
+        case "e":
+        case "event":
+            return Event.class;
+        default:
+            throw new ClaudeException("Unknown task type " + value + ". " + usage);
+        }
+    }
+
+    /**
+     * Parses the date part of a due or during condition into an inclusive date range.
+     * A comparison leaves the other end of the range open, as {@link LocalDate#MIN} or {@link LocalDate#MAX}.
+     *
+     * @param op One of :, <, <=, > or >=.
+     * @param value A date, a month, or with : also a START..END range.
+     * @param usage The usage hint to include when the operator is unknown.
+     * @return The first and last day of the range.
+     * @throws ClaudeException If the operator or dates are invalid.
+     */
+    private static LocalDate[] parseQueryRange(String op, String value, String usage) throws ClaudeException {
+        int dots = value.indexOf("..");
+        if (dots >= 0) {
+            if (!op.equals(":") || dots == 0 || dots + 2 == value.length()) {
+                throw new ClaudeException("A date range needs both ends and can only follow :. " + usage);
+            }
+            LocalDate start = parseDateRange(value.substring(0, dots), usage)[0];
+            LocalDate end = parseDateRange(value.substring(dots + 2), usage)[1];
             if (start.isAfter(end)) {
                 throw new ClaudeException("Start date must not be after end date.");
             }
-        } else {
-            throw new ClaudeException("Too many arguments. "
-                    + "Usage: due <yyyy-mm-dd> | due <yyyy-mm> | due <start> <end>");
+            return new LocalDate[] {start, end};
+        }
+        LocalDate[] range = parseDateRange(value, usage);
+        switch (op) {
+        case ":":
+            return range;
+        case "<":
+            return new LocalDate[] {LocalDate.MIN, range[0].minusDays(1)};
+        case "<=":
+            return new LocalDate[] {LocalDate.MIN, range[1]};
+        case ">":
+            return new LocalDate[] {range[1].plusDays(1), LocalDate.MAX};
+        case ">=":
+            return new LocalDate[] {range[0], LocalDate.MAX};
+        default:
+            throw new ClaudeException("Unknown comparison " + op + ". " + usage);
+        }
+    }
+
+    /**
+     * Parses a single date, a month, or a start and end date into an inclusive date range.
+     *
+     * @param content The non-empty date arguments.
+     * @param usage The usage hint to include when there are too many arguments.
+     * @return The first and last day of the range.
+     * @throws ClaudeException If the dates are invalid or out of order.
+     */
+    private static LocalDate[] parseDateRange(String content, String usage) throws ClaudeException {
+        Tokenizer tokenizer = new Tokenizer(content);
+        String first = tokenizer.next();
+        String second = tokenizer.next();
+        if (tokenizer.hasNext()) {
+            throw new ClaudeException("Too many arguments. " + usage);
         }
 
-        TaskList matching = new TaskList();
-        for (int i = 0; i < tasks.size(); i++) {
-            Task task = tasks.get(i);
-            if (task instanceof Deadline) {
-                LocalDate byDate = ((Deadline) task).getByDate();
-                if (byDate != null && !byDate.isBefore(start) && !byDate.isAfter(end)) {
-                    matching.add(task);
+        LocalDate start = parseDate(first);
+        LocalDate end;
+        if (second == null) {
+            // A specific date, or else a whole month
+            end = start;
+            if (start == null) {
+                YearMonth month = parseMonth(first);
+                if (month == null) {
+                    throw new ClaudeException(getInvalidDateMessage(first));
                 }
+                start = month.atDay(1);
+                end = month.atEndOfMonth();
+            }
+        } else {
+            if (start == null) {
+                throw new ClaudeException(getInvalidDateMessage(first));
+            }
+            end = parseDate(second);
+            if (end == null) {
+                throw new ClaudeException(getInvalidDateMessage(second));
+            }
+            if (start.isAfter(end)) {
+                throw new ClaudeException("Start date must not be after end date.");
             }
         }
-        ui.showDueList(matching, start, end);
+        return new LocalDate[] {start, end};
+    }
+
+    /**
+     * Parses a yyyy-mm-dd date.
+     *
+     * @return The date, or null if the value is not a valid date in that format.
+     */
+    private static LocalDate parseDate(String value) {
+        if (!Tokenizer.isIsoDate(value)) {
+            return null;
+        }
+        try {
+            return LocalDate.of(Integer.parseInt(value, 0, 4, 10), Integer.parseInt(value, 5, 7, 10),
+                    Integer.parseInt(value, 8, 10, 10));
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a yyyy-mm month.
+     *
+     * @return The month, or null if the value is not a valid month in that format.
+     */
+    private static YearMonth parseMonth(String value) {
+        if (!Tokenizer.isIsoMonth(value)) {
+            return null;
+        }
+        try {
+            return YearMonth.of(Integer.parseInt(value, 0, 4, 10), Integer.parseInt(value, 5, 7, 10));
+        } catch (DateTimeException e) {
+            return null;
+        }
     }
 
     private static String getInvalidDateMessage(String input) {
-        if (!input.matches("\\d{4}-\\d{2}-\\d{2}")) {
+        if (!Tokenizer.isIsoDate(input)) {
             return "Invalid date format. Use yyyy-mm-dd or yyyy-mm.";
         }
-        String[] dateParts = input.split("-");
-        int month = Integer.parseInt(dateParts[1]);
-        int day = Integer.parseInt(dateParts[2]);
-        int year = Integer.parseInt(dateParts[0]);
+        int year = Integer.parseInt(input, 0, 4, 10);
+        int month = Integer.parseInt(input, 5, 7, 10);
+        int day = Integer.parseInt(input, 8, 10, 10);
         if (month < 1 || month > 12) {
             return "Month " + month + "? I don't think that exists in any calendar I know of!";
         }
@@ -291,24 +669,19 @@ public class Parser {
                 + "Did you double-check the day?";
     }
 
-    private static void executeFind(String input, TaskList tasks,
+    private static void executeFind(String keyword, TaskList tasks,
             Ui ui) throws ClaudeException {
-        if (input.trim().equals("find")) {
-            throw new ClaudeException("Please provide a keyword to search for. "
-                    + "Usage: find <keyword>");
-        }
-        String keyword = input.substring(5).trim();
         if (keyword.isEmpty()) {
             throw new ClaudeException("Please provide a keyword to search for. "
                     + "Usage: find <keyword>");
         }
-        TaskList matching = new TaskList();
-        for (int i = 0; i < tasks.size(); i++) {
-            Task task = tasks.get(i);
-            if (task.getDescription().contains(keyword)) {
-                matching.add(task);
-            }
+        if (!FindQuery.hasOptions(keyword)) {
+            ui.showFindResults(tasks.find(keyword));
+            return;
         }
-        ui.showFindResults(matching);
+        FindQuery query = FindQuery.parse(keyword);
+        ArrayList<Task> ranked = tasks.search(query);
+        int shown = query.getLimit() > 0 ? Math.min(query.getLimit(), ranked.size()) : ranked.size();
+        ui.showRankedResults(ranked.subList(0, shown), ranked.size());
     }
 }
@@ -0,0 +1,17 @@
+package claude;
+
+/**
+ * Represents what Storage does when some lines of the data file cannot be read.
+ */
+public enum RecoveryPolicy {
+    /** Asks the user whether to keep the readable tasks. Needs someone at the keyboard. */
+    PROMPT,
+    /** Keeps the readable tasks and drops the damaged lines. */
+    RECOVER,
+    /** Drops every task and starts with an empty list. */
+    DISCARD,
+    /** Refuses to load, leaving the data file untouched so it can be fixed by hand. */
+    FAIL,
+    /** Keeps the readable tasks and moves the damaged lines to a sidecar file to be fixed later. */
+    QUARANTINE
+}
@@ -0,0 +1,124 @@
+package claude;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Serves one shared task list to many clients over a line-based TCP protocol on the local machine.
+ * Each connection is a session like the interactive one: the client sends one command per line
+ * and receives the same replies. Commands that only read the list run side by side, while commands
+ * that change it run one at a time.
+ */
+public class Server {
+    private static final int BACKLOG = 1024;
+    private static final long SESSION_STACK_SIZE = 256 * 1024;
+
+    private TaskList tasks;
+    private Storage storage;
+    private ReadWriteLock lock;
+
+    /**
+     * Creates a server sharing the given task list.
+     *
+     * @param tasks The task list all sessions work on.
+     * @param storage The storage to persist changes to.
+     */
+    public Server(TaskList tasks, Storage storage) {
+        this(tasks, storage, new ReentrantReadWriteLock());
+    }
+
+    /**
+     * Creates a server sharing the given task list, guarded by a lock that others may take too.
+     *
+     * @param tasks The task list all sessions work on.
+     * @param storage The storage to persist changes to.
+     * @param lock The lock whose write side is held while the task list changes.
+     */
+    public Server(TaskList tasks, Storage storage, ReadWriteLock lock) {
+        this.tasks = tasks;
+        this.storage = storage;
+        this.lock = lock;
+    }
+
+    /**
+     * Accepts connections on the loopback address until the process is stopped.
+     * The task list and undo history are saved when the process exits.
+     *
+     * @param port The port to listen on.
+     * @throws IOException If the port cannot be opened.
+     */
+    public void serve(int port) throws IOException {
+        ExecutorService sessions = Executors.newCachedThreadPool(runnable -> {
+            // Sessions mostly wait on their sockets, so small stacks let thousands of them run at once
+            Thread thread = new Thread(null, runnable, "claude-session", SESSION_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+        try (ServerSocket serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress())) {
+            System.out.println("Claude is listening on port " + serverSocket.getLocalPort() + ".");
+            while (true) {
+                Socket socket = serverSocket.accept();
+                sessions.execute(() -> runSession(socket));
+            }
+        } finally {
+            sessions.shutdownNow();
+        }
+    }
+
+    private void runSession(Socket socket) {
+        try (socket) {
+            Ui ui = new Ui(socket.getInputStream(),
+                    new PrintStream(socket.getOutputStream(), false, StandardCharsets.UTF_8));
+            ui.showWelcome();
+            String fullCommand = ui.readCommand();
+            while (!fullCommand.equals("bye")) {
+                ui.showLine();
+                execute(fullCommand, ui);
+                ui.showLine();
+                fullCommand = ui.readCommand();
+            }
+            ui.showGoodbye();
+            ui.flush();
+        } catch (IOException | NoSuchElementException e) {
+            // The client went away, so there is nobody left to reply to
+        }
+    }
+
+    private void execute(String fullCommand, Ui ui) {
+        boolean isReadOnly = Parser.isReadOnly(fullCommand);
+        Lock held = isReadOnly ? lock.readLock() : lock.writeLock();
+        held.lock();
+        try {
+            Parser.parseAndExecute(fullCommand, tasks, ui, storage);
+        } catch (ClaudeException e) {
+            ui.showError(e.getMessage());
+        } finally {
+            held.unlock();
+        }
+    }
+
+    private void close() {
+        lock.writeLock().lock();
+        try {
+            storage.saveHistory(tasks);
+            storage.close();
+            // No client is left to tell, so problems with the last save go to the server's console
+            for (String message : storage.takeMessages()) {
+                System.out.println(message);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package claude;
+
+/**
+ * Represents the file format Storage writes the data file in.
+ */
+public enum SnapshotFormat {
+    /** One human-readable, pipe-delimited line per task. */
+    TEXT,
+    /** Compact binary records, much faster to load for large lists. */
+    BINARY
+}
@@ -0,0 +1,42 @@
+package claude;
+
+/**
+ * Represents which tasks a listing shows, based on whether they are done.
+ */
+public enum StatusFilter {
+    ALL(""),
+    DONE("done "),
+    PENDING("pending ");
+
+    private final String label;
+
+    StatusFilter(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Returns whether the task passes this filter.
+     *
+     * @param task The task to check.
+     * @return true if the task should be shown, false otherwise.
+     */
+    public boolean matches(Task task) {
+        switch (this) {
+        case DONE:
+            return task.isDone();
+        case PENDING:
+            return !task.isDone();
+        default:
+            return true;
+        }
+    }
+
+    /**
+     * Returns the word describing the shown tasks, followed by a space, or an empty string for all tasks.
+     *
+     * @return The label used in listing headers.
+     */
+    public String getLabel() {
+        return label;
+    }
+}
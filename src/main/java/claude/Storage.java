@@ -1,16 +1,70 @@
 package claude;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.function.IntPredicate;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
 /**
  * Handles loading and saving tasks to a file on the hard disk.
+ * In journal mode, single-task changes are appended to a journal next to the data file
+ * and folded back into the data file once the journal grows past a threshold.
+ * The data file is always replaced atomically, so a crash mid-save leaves the previous version intact.
+ * It is written in the configured format and read in whichever format it was found in.
+ * Errors and notices are queued instead of printed, as loading and saving may run on background
+ * threads; whoever owns the {@link Ui} shows them with {@link Ui#showMessages}.
  */
 public class Storage {
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String HISTORY_SUFFIX = ".undo";
+    private static final String CORRUPT_SUFFIX = ".corrupt";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String FIELD_SEPARATOR = " | ";
+    private static final String ID_PREFIX = "#";
+    private static final String NEXT_ID_HEADER = "NEXT";
+    private static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    private static final int MAX_REPORTED_LINES = 10;
+
     private String filePath;
+    private Journal journal;
+    private int compactionThreshold;
+    private Durability durability;
+    private SnapshotFormat format;
+    private SnapshotFormat loadedFormat;
+    private boolean isDeferred;
+    private boolean isDirty;
+    private long snapshotChecksum;
+    private int nextId;
+    private boolean isSnapshotIntact;
+    private boolean isSnapshotReadable;
+    private boolean isStartedFresh;
+    private TaskFileLoader.Result pendingRecovery;
+    private boolean isHistoryKept;
+    private RecoveryPolicy recoveryPolicy;
+    private ConcurrentLinkedQueue<String> messages;
 
     /**
      * Creates a new Storage with the given file path.
@@ -18,107 +72,677 @@ public class Storage {
      * @param filePath The path to the data file.
      */
     public Storage(String filePath) {
+        this(filePath, false);
+    }
+
+    /**
+     * Creates a new Storage with the given file path, optionally keeping a journal.
+     *
+     * @param filePath The path to the data file.
+     * @param isJournaled Whether changes are appended to a journal instead of rewriting the file.
+     */
+    public Storage(String filePath, boolean isJournaled) {
         this.filePath = filePath;
+        this.journal = isJournaled ? new Journal(filePath + JOURNAL_SUFFIX) : null;
+        this.compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+        this.durability = Durability.FLUSH;
+        this.format = SnapshotFormat.TEXT;
+        this.recoveryPolicy = RecoveryPolicy.PROMPT;
+        this.messages = new ConcurrentLinkedQueue<>();
+    }
+
+    private void report(String message) {
+        messages.add(message);
+    }
+
+    /**
+     * Removes and returns the errors and notices reported since the last call, oldest first.
+     * Safe to call from any thread.
+     *
+     * @return The messages.
+     */
+    public List<String> takeMessages() {
+        List<String> taken = new ArrayList<>();
+        for (String message = messages.poll(); message != null; message = messages.poll()) {
+            taken.add(message);
+        }
+        return taken;
+    }
+
+    /**
+     * Sets what loading does when some lines of the data file cannot be read.
+     *
+     * @param recoveryPolicy The recovery policy.
+     */
+    public void setRecoveryPolicy(RecoveryPolicy recoveryPolicy) {
+        this.recoveryPolicy = recoveryPolicy;
+    }
+
+    /**
+     * Returns what loading does when some lines of the data file cannot be read.
+     *
+     * @return The recovery policy.
+     */
+    public RecoveryPolicy getRecoveryPolicy() {
+        return recoveryPolicy;
+    }
+
+    /**
+     * Sets the format the data file is written in.
+     * A data file found in the other format is converted the next time it is loaded.
+     *
+     * @param format The format to save in.
+     */
+    public void setFormat(SnapshotFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * Sets how hard saves and journal records are pushed to the disk before returning.
+     * Snapshots are always handed to the operating system in full, so for them NONE is the same as FLUSH.
+     *
+     * @param durability The durability level.
+     */
+    public void setDurability(Durability durability) {
+        this.durability = durability;
+        if (journal != null) {
+            journal.setDurability(durability);
+        }
     }
 
     /**
-     * Saves all tasks to the data file.
+     * Sets whether changes are held in memory until {@link #flush(TaskList)} is called,
+     * instead of being persisted as each command runs.
+     *
+     * @param isDeferred Whether persistence is deferred.
+     */
+    public void setDeferred(boolean isDeferred) {
+        this.isDeferred = isDeferred;
+    }
+
+    /**
+     * Saves the tasks if any change has been held back since the last save.
+     *
+     * @param tasks The task list to save.
+     */
+    public void flush(TaskList tasks) {
+        if (isDirty) {
+            save(tasks);
+        }
+    }
+
+    /**
+     * Saves a copy of the tasks if any change has been held back since the last save.
+     * Only taking the copy holds the lock, so changes to the list can go on while the copy is written.
+     * Meant for saving from a background thread, while another thread changes the list under the lock.
+     *
+     * @param tasks The task list to save.
+     * @param lock The lock that guards changes to the task list.
+     */
+    public synchronized void flush(TaskList tasks, Lock lock) {
+        ArrayList<Task> snapshot;
+        int snapshotNextId;
+        lock.lock();
+        try {
+            if (!isDirty) {
+                return;
+            }
+            isDirty = false;
+            snapshot = tasks.getTasks();
+            snapshotNextId = tasks.getNextId();
+        } finally {
+            lock.unlock();
+        }
+        if (!writeSnapshot(new TaskList(snapshot, snapshotNextId))) {
+            lock.lock();
+            try {
+                isDirty = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Sets how many journal records may accumulate before they are compacted into the data file.
+     *
+     * @param compactionThreshold The maximum number of journal records.
+     */
+    public void setCompactionThreshold(int compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Saves all tasks to the data file and clears the journal.
+     * The tasks are written to a temporary file first, which then replaces the data file
+     * in a single atomic rename.
      *
      * @param tasks The task list to save.
      */
     public void save(TaskList tasks) {
+        if (writeSnapshot(tasks)) {
+            isDirty = false;
+        }
+    }
+
+    private boolean writeSnapshot(TaskList tasks) {
         try {
-            File file = new File(filePath);
-            file.getParentFile().mkdirs();
-            FileWriter writer = new FileWriter(file);
-            for (int i = 0; i < tasks.size(); i++) {
-                writer.write(tasks.get(i).toFileString() + System.lineSeparator());
+            Path path = new File(filePath).getAbsoluteFile().toPath();
+            Path tempPath = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+            Files.createDirectories(path.getParent());
+            CRC32 checksum = new CRC32();
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                OutputStream output = new CheckedOutputStream(Channels.newOutputStream(channel), checksum);
+                if (format == SnapshotFormat.BINARY) {
+                    BinaryTaskFormat.write(tasks, new BufferedOutputStream(output, WRITE_BUFFER_SIZE));
+                } else {
+                    writeText(tasks, output);
+                }
+                // Even with NONE the whole snapshot reaches the operating system, as it replaces the data file
+                if (durability == Durability.FSYNC) {
+                    channel.force(true);
+                }
             }
-            writer.close();
+            moveAtomically(tempPath, path);
+            snapshotChecksum = checksum.getValue();
+            if (journal != null) {
+                journal.clear();
+            }
+            return true;
         } catch (IOException e) {
-            System.out.println("Error saving tasks: " + e.getMessage());
+            report("Error saving tasks: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void writeText(TaskList tasks, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8),
+                WRITE_BUFFER_SIZE);
+        writer.write(NEXT_ID_HEADER + FIELD_SEPARATOR + tasks.getNextId());
+        writer.write(System.lineSeparator());
+        for (Task task : tasks) {
+            writer.write(formatTask(task));
+            writer.write(System.lineSeparator());
+        }
+        writer.flush();
+    }
+
+    private void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (durability == Durability.FSYNC) {
+            // Make the rename itself durable; not every platform allows opening a directory
+            try (FileChannel directory = FileChannel.open(target.getParent(), StandardOpenOption.READ)) {
+                directory.force(true);
+            } catch (IOException e) {
+                // The file contents are already on disk, only the rename may be lost
+            }
         }
     }
 
     /**
-     * Loads tasks from the data file.
-     * If some lines are corrupted, asks the user whether to recover valid tasks or discard all.
-     * If all lines are corrupted, informs the user and starts fresh.
+     * Writes out anything still buffered and releases open files.
+     */
+    public void close() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                report("Error saving tasks: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Persists a task that was just added to the end of the list.
      *
-     * @return The list of loaded tasks.
-     * @throws ClaudeException If the file is partially corrupted and needs user intervention.
+     * @param tasks The task list after the change.
+     * @param task The task that was added.
+     */
+    public void recordAdd(TaskList tasks, Task task) {
+        if (isDeferred) {
+            isDirty = true;
+            return;
+        }
+        if (journal == null) {
+            save(tasks);
+            return;
+        }
+        try {
+            journal.appendAdd(task, snapshotChecksum);
+        } catch (IOException e) {
+            report("Error saving tasks: " + e.getMessage());
+        }
+        compactIfNeeded(tasks);
+    }
+
+    /**
+     * Persists a task that was just inserted at a position in the list.
+     *
+     * @param tasks The task list after the change.
+     * @param index The zero-based index of the inserted task.
+     */
+    public void recordInsert(TaskList tasks, int index) {
+        if (isDeferred) {
+            isDirty = true;
+            return;
+        }
+        if (journal == null) {
+            save(tasks);
+            return;
+        }
+        try {
+            journal.appendInsert(index, tasks.get(index), snapshotChecksum);
+        } catch (IOException e) {
+            report("Error saving tasks: " + e.getMessage());
+        }
+        compactIfNeeded(tasks);
+    }
+
+    /**
+     * Persists a change to the done status of a task.
+     *
+     * @param tasks The task list after the change.
+     * @param index The zero-based index of the changed task.
+     */
+    public void recordStatus(TaskList tasks, int index) {
+        if (isDeferred) {
+            isDirty = true;
+            return;
+        }
+        if (journal == null) {
+            save(tasks);
+            return;
+        }
+        try {
+            if (tasks.get(index).isDone()) {
+                journal.appendMark(index, snapshotChecksum);
+            } else {
+                journal.appendUnmark(index, snapshotChecksum);
+            }
+        } catch (IOException e) {
+            report("Error saving tasks: " + e.getMessage());
+        }
+        compactIfNeeded(tasks);
+    }
+
+    /**
+     * Persists the removal of a task.
+     *
+     * @param tasks The task list after the change.
+     * @param index The zero-based index the task had before it was removed.
+     */
+    public void recordDelete(TaskList tasks, int index) {
+        if (isDeferred) {
+            isDirty = true;
+            return;
+        }
+        if (journal == null) {
+            save(tasks);
+            return;
+        }
+        try {
+            journal.appendDelete(index, snapshotChecksum);
+        } catch (IOException e) {
+            report("Error saving tasks: " + e.getMessage());
+        }
+        compactIfNeeded(tasks);
+    }
+
+    /**
+     * Persists a change to many tasks at once by writing the whole list a single time.
+     *
+     * @param tasks The task list after the change.
+     */
+    public void recordAll(TaskList tasks) {
+        if (isDeferred) {
+            isDirty = true;
+            return;
+        }
+        save(tasks);
+    }
+
+    private void compactIfNeeded(TaskList tasks) {
+        if (journal.size() >= compactionThreshold) {
+            save(tasks);
+        }
+    }
+
+    /**
+     * Sets whether the undo history is saved next to the data file, so it survives restarts.
+     *
+     * @param isHistoryKept Whether the undo history is saved and loaded.
+     */
+    public void setHistoryKept(boolean isHistoryKept) {
+        this.isHistoryKept = isHistoryKept;
+    }
+
+    /**
+     * Saves the undo history of the task list, if keeping the history is enabled.
+     *
+     * @param tasks The task list whose history to save.
+     */
+    public void saveHistory(TaskList tasks) {
+        if (!isHistoryKept) {
+            return;
+        }
+        try {
+            Path path = new File(filePath + HISTORY_SUFFIX).getAbsoluteFile().toPath();
+            Path tempPath = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+            Files.createDirectories(path.getParent());
+            try (Writer writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+                tasks.getHistory().write(tasks, writer);
+            }
+            moveAtomically(tempPath, path);
+        } catch (IOException e) {
+            report("Error saving undo history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the undo history saved for the task list, if keeping the history is enabled.
+     * A history saved for a different version of the list is stale and deleted.
+     *
+     * @param tasks The task list just loaded from this storage.
+     */
+    public void loadHistory(TaskList tasks) {
+        File file = new File(filePath + HISTORY_SUFFIX);
+        if (!isHistoryKept || !file.exists()) {
+            return;
+        }
+        UndoLog history;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            history = UndoLog.read(reader, tasks);
+        } catch (IOException | ClaudeException e) {
+            report("Error loading undo history: " + e.getMessage());
+            return;
+        }
+        if (history != null) {
+            tasks.setHistory(history);
+        } else if (!file.delete()) {
+            report("Error deleting stale undo history: " + file);
+        }
+    }
+
+    /**
+     * Loads tasks from the data file, then replays the journal on top if journaling is enabled.
+     * The file format is detected automatically, and the file is converted if it is not in
+     * the configured format.
+     * If some lines are corrupted, reports them with their line numbers and applies the recovery policy.
+     * If all lines are corrupted, informs the user and starts fresh, unless the policy says otherwise.
+     * When the policy is to ask, the load stops before reporting anything and {@link #recover} finishes it.
+     *
+     * @return The list of loaded tasks, or null if the user must be asked what to do with a damaged file.
+     * @throws ClaudeException If the file is corrupted and the policy is to fail,
+     *     or the damaged lines cannot be quarantined.
      */
     public ArrayList<Task> load() throws ClaudeException {
-        ArrayList<Task> tasks = new ArrayList<>();
-        File file = new File(filePath);
-        if (!file.exists()) {
+        ArrayList<Task> tasks = loadSnapshot();
+        if (!isSnapshotReadable || tasks == null) {
+            return tasks;
+        }
+        if (!isSnapshotIntact) {
+            return finishRecovery(tasks);
+        }
+        if (journal == null) {
+            if (loadedFormat != null && loadedFormat != format) {
+                save(new TaskList(tasks, nextId));
+            }
             return tasks;
         }
+        try {
+            int skippedCount = journal.replay(tasks, snapshotChecksum);
+            nextId = Math.max(nextId, journal.getMaxId() + 1);
+            if (skippedCount > 0) {
+                report("Skipped " + skippedCount + " unreadable journal "
+                        + (skippedCount == 1 ? "entry" : "entries") + ".");
+            }
+        } catch (IOException e) {
+            report("Error loading journal: " + e.getMessage());
+        }
+        if (loadedFormat != null && loadedFormat != format) {
+            save(new TaskList(tasks, nextId));
+        } else {
+            compactIfNeeded(new TaskList(tasks, nextId));
+        }
+        return tasks;
+    }
 
-        ArrayList<Task> validTasks = new ArrayList<>();
-        int totalLines = 0;
-        int corruptedCount = 0;
+    /**
+     * Finishes a load that stopped to ask whether to keep the readable tasks of a damaged data file.
+     * Reports what is damaged, asks, and carries on as {@link #load()} would with the answer.
+     *
+     * @param askToRecover Asked with the number of readable tasks; true keeps them, false starts fresh.
+     * @return The list of loaded tasks.
+     */
+    public ArrayList<Task> recover(IntPredicate askToRecover) {
+        TaskFileLoader.Result result = pendingRecovery;
+        pendingRecovery = null;
+        reportCorruption(result);
+        return finishRecovery(keepReadableTasks(result, askToRecover.test(result.getTasks().size())));
+    }
 
-        try {
-            Scanner fileScanner = new Scanner(file);
-            while (fileScanner.hasNextLine()) {
-                String line = fileScanner.nextLine().trim();
-                if (line.isEmpty()) {
-                    continue;
+    private ArrayList<Task> finishRecovery(ArrayList<Task> tasks) {
+        recoverJournal(tasks);
+        // Damaged lines dealt with once must not be reported again at the next start
+        save(new TaskList(tasks, nextId));
+        return tasks;
+    }
+
+    /**
+     * Replays the journal onto what was kept of a damaged data file, which holds null for each
+     * damaged task until then, so that journal positions still refer to the file as written.
+     * A journal that cannot be fully replayed, or that belongs to a list the user chose not to keep,
+     * is set aside next to the data file instead of being lost when the file is rewritten.
+     */
+    private void recoverJournal(ArrayList<Task> tasks) {
+        if (journal != null && journal.exists()) {
+            try {
+                if (isStartedFresh) {
+                    setJournalAside();
+                    return;
                 }
-                totalLines++;
-                try {
-                    validTasks.add(parseTask(line));
-                } catch (ClaudeException e) {
-                    corruptedCount++;
+                int skippedCount = journal.replayOverDamage(tasks);
+                nextId = Math.max(nextId, journal.getMaxId() + 1);
+                report("Applied " + journal.size() + " unsaved "
+                        + (journal.size() == 1 ? "change" : "changes") + " from the journal.");
+                if (skippedCount > 0) {
+                    report("Skipped " + skippedCount + " journal "
+                            + (skippedCount == 1 ? "entry" : "entries") + " that changed damaged tasks.");
+                    setJournalAside();
                 }
+            } catch (IOException e) {
+                report("Error loading journal: " + e.getMessage());
+                setJournalAside();
             }
-            fileScanner.close();
+        }
+        tasks.removeIf(Objects::isNull);
+    }
+
+    private void setJournalAside() {
+        String path = filePath + JOURNAL_SUFFIX + CORRUPT_SUFFIX;
+        try {
+            journal.setAside(path);
+            report("Kept a copy of the journal in " + path + ".");
         } catch (IOException e) {
-            System.out.println("Error loading tasks: " + e.getMessage());
-            return tasks;
+            // Rewriting the data file would clear the journal, so leave both as they are
+            report("Error keeping a copy of the journal: " + e.getMessage());
         }
+    }
 
-        if (totalLines == 0) {
+    /**
+     * Returns the lowest ID the loaded list may hand out, as recorded by the data file and journal,
+     * so that tasks deleted before the last save do not have their IDs reused.
+     *
+     * @return The next free task ID, or 1 if none was recorded.
+     */
+    public int getNextId() {
+        return nextId;
+    }
+
+    private ArrayList<Task> loadSnapshot() throws ClaudeException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        snapshotChecksum = new CRC32().getValue();
+        nextId = 1;
+        isSnapshotIntact = true;
+        isStartedFresh = false;
+        isSnapshotReadable = true;
+        loadedFormat = null;
+        pendingRecovery = null;
+        File file = new File(filePath);
+        if (!file.exists()) {
             return tasks;
         }
 
-        if (corruptedCount == 0) {
-            return validTasks;
+        TaskFileLoader.Result result;
+        try {
+            if (BinaryTaskFormat.isBinary(file.toPath())) {
+                result = BinaryTaskFormat.read(file.toPath());
+                loadedFormat = SnapshotFormat.BINARY;
+            } else {
+                result = new TaskFileLoader().load(file.toPath());
+                loadedFormat = SnapshotFormat.TEXT;
+            }
+            snapshotChecksum = result.getChecksum();
+            nextId = Math.max(1, result.getNextId());
+        } catch (IOException e) {
+            report("Error loading tasks: " + e.getMessage());
+            isSnapshotReadable = false;
+            return tasks;
         }
 
-        if (corruptedCount == totalLines) {
-            System.out.println("The save file is fully corrupted. Starting with an empty task list.");
+        if (result.getTotalLines() == 0) {
             return tasks;
         }
 
-        System.out.println("Some data in the save file is corrupted (" + corruptedCount
-                + " out of " + totalLines + " entries).");
-        System.out.println("Would you like to recover the " + validTasks.size()
-                + " valid " + (validTasks.size() == 1 ? "task" : "tasks") + "?");
-        System.out.println("Enter 'yes' to recover, or 'no' to start fresh:");
+        if (result.getCorruptedCount() == 0) {
+            return result.getTasks();
+        }
 
-        Scanner inputScanner = new Scanner(System.in);
-        String response = inputScanner.nextLine().trim().toLowerCase();
-        if (response.equals("yes")) {
-            System.out.println("Recovered " + validTasks.size() + " "
-                    + (validTasks.size() == 1 ? "task" : "tasks") + ".");
-            return validTasks;
+        isSnapshotIntact = false;
+        if (recoveryPolicy == RecoveryPolicy.PROMPT && result.getCorruptedCount() < result.getTotalLines()) {
+            // Only the command loop may read the answer, so the load waits for recover to be called
+            pendingRecovery = result;
+            return null;
+        }
+        reportCorruption(result);
+        if (recoveryPolicy == RecoveryPolicy.FAIL) {
+            throw new ClaudeException("The save file is corrupted, so it was left as it is.");
+        }
+        if (recoveryPolicy == RecoveryPolicy.QUARANTINE) {
+            quarantine(result.getCorruptedLines());
+        }
+        if (result.getCorruptedCount() == result.getTotalLines()) {
+            report("The save file is fully corrupted. Starting with an empty task list.");
+            return withPlaceholders(result);
+        }
+        return keepReadableTasks(result, recoveryPolicy != RecoveryPolicy.DISCARD);
+    }
+
+    private ArrayList<Task> keepReadableTasks(TaskFileLoader.Result result, boolean isRecovered) {
+        int validCount = result.getTasks().size();
+        if (isRecovered) {
+            report("Recovered " + validCount + " " + (validCount == 1 ? "task" : "tasks") + ".");
+            return withPlaceholders(result);
         } else {
-            System.out.println("Save file cleared. Starting with an empty task list.");
-            return tasks;
+            report("Save file cleared. Starting with an empty task list.");
+            isStartedFresh = true;
+            return new ArrayList<>();
         }
     }
 
+    /**
+     * Returns the entries of a damaged data file in order, with null for each damaged one.
+     * Without line details, as in the binary format, the damaged entries are the last ones.
+     */
+    private static ArrayList<Task> withPlaceholders(TaskFileLoader.Result result) {
+        ArrayList<Task> validTasks = result.getTasks();
+        ArrayList<Task> entries = new ArrayList<>(result.getTotalLines());
+        int validIndex = 0;
+        for (TaskFileLoader.CorruptedLine line : result.getCorruptedLines()) {
+            while (entries.size() < line.getEntryIndex()) {
+                entries.add(validTasks.get(validIndex++));
+            }
+            entries.add(null);
+        }
+        entries.addAll(validTasks.subList(validIndex, validTasks.size()));
+        while (entries.size() < result.getTotalLines()) {
+            entries.add(null);
+        }
+        return entries;
+    }
+
+    /**
+     * Reports how much of the data file is corrupted and the first few damaged lines.
+     */
+    private void reportCorruption(TaskFileLoader.Result result) {
+        List<TaskFileLoader.CorruptedLine> corruptedLines = result.getCorruptedLines();
+        report("Some data in the save file is corrupted (" + result.getCorruptedCount()
+                + " out of " + result.getTotalLines() + " entries).");
+        if (corruptedLines.isEmpty()) {
+            // The binary format stops at the first damaged record, so everything after it is lost
+            report("Entries " + (result.getTasks().size() + 1) + " to " + result.getTotalLines()
+                    + " could not be read.");
+            return;
+        }
+        for (int i = 0; i < Math.min(corruptedLines.size(), MAX_REPORTED_LINES); i++) {
+            TaskFileLoader.CorruptedLine line = corruptedLines.get(i);
+            report("Line " + line.getLineNumber() + " (" + line.getReason() + "): "
+                    + line.getText());
+        }
+        if (corruptedLines.size() > MAX_REPORTED_LINES) {
+            report("...and " + (corruptedLines.size() - MAX_REPORTED_LINES) + " more.");
+        }
+    }
+
+    /**
+     * Appends the damaged lines to a file next to the data file, each after its line number,
+     * so they can be fixed and added back by hand.
+     */
+    private void quarantine(List<TaskFileLoader.CorruptedLine> corruptedLines) throws ClaudeException {
+        if (corruptedLines.isEmpty()) {
+            return;
+        }
+        try (Writer writer = Files.newBufferedWriter(Path.of(filePath + CORRUPT_SUFFIX), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (TaskFileLoader.CorruptedLine line : corruptedLines) {
+                writer.write(line.getLineNumber() + FIELD_SEPARATOR + line.getText() + System.lineSeparator());
+            }
+        } catch (IOException e) {
+            // Without a copy of the damaged lines, saving the recovered tasks would lose them for good
+            throw new ClaudeException("Could not save the damaged lines: " + e.getMessage());
+        }
+        report("Moved " + corruptedLines.size() + " damaged "
+                + (corruptedLines.size() == 1 ? "line" : "lines") + " to " + filePath + CORRUPT_SUFFIX + ".");
+    }
+
     /**
      * Parses a single line from the data file into a Task object.
+     * The line may start with the task's ID, as in "#12 | T | 0 | read book".
      *
      * @param line The line to parse.
      * @return The parsed Task.
      * @throws ClaudeException If the line format is invalid.
      */
-    private Task parseTask(String line) throws ClaudeException {
-        String[] parts = line.split(" \\| ");
+    static Task parseTask(String line) throws ClaudeException {
+        int id = 0;
+        if (line.startsWith(ID_PREFIX)) {
+            int idEnd = line.indexOf(FIELD_SEPARATOR);
+            try {
+                id = Integer.parseInt(line, ID_PREFIX.length(), idEnd < 0 ? line.length() : idEnd, 10);
+            } catch (NumberFormatException e) {
+                throw new ClaudeException("Invalid task ID");
+            }
+            if (id <= 0 || idEnd < 0) {
+                throw new ClaudeException("Invalid task ID");
+            }
+            line = line.substring(idEnd + FIELD_SEPARATOR.length());
+        }
+        String[] parts = splitFields(line);
         if (parts.length < 3) {
             throw new ClaudeException("Invalid format");
         }
@@ -140,11 +764,17 @@ public class Storage {
             if (parts.length < 4) {
                 throw new ClaudeException("Invalid event format");
             }
-            String[] times = parts[3].trim().split("-", 2);
-            if (times.length < 2) {
+            if (parts.length >= 5) {
+                task = new Event(description, parts[3].trim(), parts[4].trim());
+                break;
+            }
+            String times = parts[3].trim();
+            int dashIndex = findLegacyTimeSeparator(times);
+            if (dashIndex < 0) {
                 throw new ClaudeException("Invalid event time format");
             }
-            task = new Event(description, times[0].trim(), times[1].trim());
+            task = new Event(description, times.substring(0, dashIndex).trim(),
+                    times.substring(dashIndex + 1).trim());
             break;
         default:
             throw new ClaudeException("Unknown task type: " + type);
@@ -152,6 +782,79 @@ public class Storage {
         if (isDone) {
             task.markAsDone();
         }
+        task.setId(id);
         return task;
     }
+
+    /**
+     * Returns the next free task ID if the line is the header of a text data file, such as "NEXT | 13".
+     *
+     * @param line A line from the data file.
+     * @return The ID, or 0 if the line is not a valid header.
+     */
+    static int parseNextId(String line) {
+        String prefix = NEXT_ID_HEADER + FIELD_SEPARATOR;
+        if (!line.startsWith(prefix)) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(line.substring(prefix.length()).trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the line a task is saved as, led by its ID if it has one.
+     */
+    static String formatTask(Task task) {
+        if (task.getId() == 0) {
+            return task.toFileString();
+        }
+        return ID_PREFIX + task.getId() + FIELD_SEPARATOR + task.toFileString();
+    }
+
+    /**
+     * Finds the '-' separating start and end in the older "from-to" event format.
+     * The first '-' that follows a complete ISO date or date-time wins, so dashes inside
+     * dates are not mistaken for the separator; otherwise the first '-' is used.
+     */
+    private static int findLegacyTimeSeparator(String times) {
+        for (int i = times.indexOf('-'); i >= 0; i = times.indexOf('-', i + 1)) {
+            String start = times.substring(0, i).trim();
+            if (Event.parseDateTime(start) != null) {
+                return i;
+            }
+            if (!Tokenizer.isIsoDate(start)) {
+                continue;
+            }
+            try {
+                LocalDate.parse(start);
+                return i;
+            } catch (DateTimeParseException e) {
+                // Not a date yet, keep looking
+            }
+        }
+        return times.indexOf('-');
+    }
+
+    /**
+     * Splits a line on the " | " field separator without going through a regex.
+     * Trailing empty fields are dropped, as String.split would.
+     */
+    private static String[] splitFields(String line) {
+        ArrayList<String> fields = new ArrayList<>(5);
+        int start = 0;
+        int separatorIndex;
+        while ((separatorIndex = line.indexOf(FIELD_SEPARATOR, start)) >= 0) {
+            fields.add(line.substring(start, separatorIndex));
+            start = separatorIndex + FIELD_SEPARATOR.length();
+        }
+        fields.add(line.substring(start));
+        int count = fields.size();
+        while (count > 0 && fields.get(count - 1).isEmpty()) {
+            count--;
+        }
+        return fields.subList(0, count).toArray(new String[0]);
+    }
 }
@@ -1,11 +1,26 @@
 package claude;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 /**
  * Represents a task with a description and completion status.
+ * The status is safe to read and change from several threads at once.
  */
 public class Task {
+    private static final VarHandle IS_DONE;
+
+    static {
+        try {
+            IS_DONE = MethodHandles.lookup().findVarHandle(Task.class, "isDone", boolean.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     protected String description;
-    protected boolean isDone;
+    protected volatile boolean isDone;
+    protected int id;
 
     /**
      * Creates a new task with the given description.
@@ -26,6 +41,24 @@ public class Task {
         return (isDone ? "X" : " ");
     }
 
+    /**
+     * Returns the stable ID of this task, which does not change when other tasks are deleted.
+     *
+     * @return The ID, or 0 if the task has not been added to a task list yet.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Sets the ID of this task. IDs are handed out by {@link TaskList}.
+     *
+     * @param id The new ID.
+     */
+    void setId(int id) {
+        this.id = id;
+    }
+
     /**
      * Returns whether this task is done.
      *
@@ -35,14 +68,22 @@ public class Task {
         return isDone;
     }
 
-    /** Marks this task as done. */
-    public void markAsDone() {
-        this.isDone = true;
+    /**
+     * Marks this task as done, atomically.
+     *
+     * @return true if the task was not done before, false if another call got there first.
+     */
+    public boolean markAsDone() {
+        return IS_DONE.compareAndSet(this, false, true);
     }
 
-    /** Marks this task as not done. */
-    public void markAsNotDone() {
-        this.isDone = false;
+    /**
+     * Marks this task as not done, atomically.
+     *
+     * @return true if the task was done before, false if another call got there first.
+     */
+    public boolean markAsNotDone() {
+        return IS_DONE.compareAndSet(this, true, false);
     }
 
     /**
@@ -63,6 +104,16 @@ public class Task {
         return (isDone ? "1" : "0") + " | " + description;
     }
 
+    /**
+     * Appends this task as it is displayed, including status icon and description.
+     * Listing many tasks into one builder this way creates no string per task.
+     *
+     * @param out The builder to append to.
+     */
+    public void appendTo(StringBuilder out) {
+        out.append('[').append(isDone ? 'X' : ' ').append("] ").append(description);
+    }
+
     /**
      * Returns a string representation of this task, including status icon and description.
      *
@@ -70,6 +121,8 @@ public class Task {
      */
     @Override
     public String toString() {
-        return "[" + getStatusIcon() + "] " + description;
+        StringBuilder out = new StringBuilder();
+        appendTo(out);
+        return out.toString();
     }
 }
\ No newline at end of file
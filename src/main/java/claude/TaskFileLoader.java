@@ -0,0 +1,330 @@
+package claude;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.CRC32;
+
+/**
+ * Reads a data file by memory-mapping it in newline-aligned chunks and parsing the chunks
+ * in parallel on a ForkJoinPool. Tasks come back in file order.
+ * Each chunk numbers its lines from 1, and the numbers are shifted by the lines of the chunks
+ * before it when results are merged, so damaged lines are reported with their line in the file.
+ */
+public class TaskFileLoader {
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 22;
+    private static final int BOUNDARY_SCAN_SIZE = 1 << 13;
+
+    private int chunkSize;
+    private ForkJoinPool pool;
+
+    /**
+     * Creates a loader that parses chunks of the default size on the common pool.
+     */
+    public TaskFileLoader() {
+        this(DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a loader with the given chunk size and pool.
+     *
+     * @param chunkSize The approximate number of bytes parsed by a single worker.
+     * @param pool The pool to parse chunks on.
+     */
+    public TaskFileLoader(int chunkSize, ForkJoinPool pool) {
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+    }
+
+    /**
+     * A line of the data file that could not be parsed.
+     */
+    public static class CorruptedLine {
+        private int lineNumber;
+        private int entryIndex;
+        private String text;
+        private String reason;
+
+        CorruptedLine(int lineNumber, int entryIndex, String text, String reason) {
+            this.lineNumber = lineNumber;
+            this.entryIndex = entryIndex;
+            this.text = text;
+            this.reason = reason;
+        }
+
+        /**
+         * Returns the line number in the file, counting from 1.
+         *
+         * @return The line number.
+         */
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * Returns the position of the line among the task lines of the file, counting from 0,
+         * which is where the task it held was in the saved list.
+         *
+         * @return The entry index.
+         */
+        public int getEntryIndex() {
+            return entryIndex;
+        }
+
+        /**
+         * Returns the line as it is in the file.
+         *
+         * @return The line text.
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Returns why the line could not be parsed.
+         *
+         * @return The reason.
+         */
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    /**
+     * Holds the outcome of loading a data file.
+     */
+    public static class Result {
+        private ArrayList<Task> tasks;
+        private int totalLines;
+        private int corruptedCount;
+        private long checksum;
+        private int nextId;
+        private int lineCount;
+        private ArrayList<CorruptedLine> corruptedLines;
+
+        private Result(ArrayList<Task> tasks, int totalLines, int lineCount,
+                ArrayList<CorruptedLine> corruptedLines) {
+            this(tasks, totalLines, corruptedLines.size(), 0, 0);
+            this.lineCount = lineCount;
+            this.corruptedLines = corruptedLines;
+        }
+
+        Result(ArrayList<Task> tasks, int totalLines, int corruptedCount, long checksum, int nextId) {
+            this.tasks = tasks;
+            this.totalLines = totalLines;
+            this.corruptedCount = corruptedCount;
+            this.checksum = checksum;
+            this.nextId = nextId;
+            this.corruptedLines = new ArrayList<>();
+        }
+
+        /**
+         * Returns the tasks parsed from valid lines, in file order.
+         *
+         * @return The valid tasks.
+         */
+        public ArrayList<Task> getTasks() {
+            return tasks;
+        }
+
+        /**
+         * Returns the number of non-empty lines in the file.
+         *
+         * @return The line count.
+         */
+        public int getTotalLines() {
+            return totalLines;
+        }
+
+        /**
+         * Returns the number of non-empty lines that could not be parsed.
+         *
+         * @return The corrupted line count.
+         */
+        public int getCorruptedCount() {
+            return corruptedCount;
+        }
+
+        /**
+         * Returns the CRC32 checksum of the raw file contents.
+         *
+         * @return The checksum.
+         */
+        public long getChecksum() {
+            return checksum;
+        }
+
+        /**
+         * Returns the lowest ID the saved list could still hand out, so IDs of deleted tasks are not reused.
+         *
+         * @return The next free task ID, or 0 if the file does not record it.
+         */
+        public int getNextId() {
+            return nextId;
+        }
+
+        /**
+         * Returns the lines that could not be parsed, in file order.
+         * Formats without lines, such as the binary format, only count their damaged records.
+         *
+         * @return The corrupted lines.
+         */
+        public List<CorruptedLine> getCorruptedLines() {
+            return corruptedLines;
+        }
+    }
+
+    /**
+     * Loads all tasks from the given file.
+     *
+     * @param path The path to the data file.
+     * @return The parsed tasks together with line counts and the file checksum.
+     * @throws IOException If the file cannot be read.
+     */
+    public Result load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ArrayList<MappedByteBuffer> chunks = new ArrayList<>();
+            long start = 0;
+            while (start < size) {
+                long end = findChunkEnd(channel, start + chunkSize, size);
+                chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+                start = end;
+            }
+
+            Result result;
+            CRC32 checksum = new CRC32();
+            if (chunks.size() > 1) {
+                ParseTask task = new ParseTask(chunks, 0, chunks.size());
+                pool.execute(task);
+                // Checksum the file on this thread while the workers parse
+                for (MappedByteBuffer chunk : chunks) {
+                    checksum.update(chunk.duplicate());
+                }
+                result = task.join();
+            } else {
+                for (MappedByteBuffer chunk : chunks) {
+                    checksum.update(chunk.duplicate());
+                }
+                result = chunks.isEmpty() ? new Result(new ArrayList<>(), 0, 0, new ArrayList<>())
+                        : parseChunk(chunks.get(0));
+            }
+            result.checksum = checksum.getValue();
+            return result;
+        }
+    }
+
+    /**
+     * Returns the offset just past the first newline at or after the given position,
+     * or the file size if there is none.
+     */
+    private static long findChunkEnd(FileChannel channel, long position, long size) throws IOException {
+        if (position >= size) {
+            return size;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        long offset = position;
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private static Result parseChunk(ByteBuffer chunk) {
+        byte[] bytes = new byte[chunk.remaining()];
+        chunk.duplicate().get(bytes);
+        String text = new String(bytes, StandardCharsets.UTF_8);
+
+        ArrayList<Task> tasks = new ArrayList<>();
+        ArrayList<CorruptedLine> corruptedLines = new ArrayList<>();
+        int nextId = 0;
+        int totalLines = 0;
+        int lineCount = 0;
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            String line = text.substring(lineStart, lineEnd).trim();
+            lineStart = lineEnd + 1;
+            lineCount++;
+            if (line.isEmpty()) {
+                continue;
+            }
+            int headerNextId = Storage.parseNextId(line);
+            if (headerNextId > 0) {
+                nextId = Math.max(nextId, headerNextId);
+                continue;
+            }
+            totalLines++;
+            try {
+                tasks.add(Storage.parseTask(line));
+            } catch (ClaudeException e) {
+                corruptedLines.add(new CorruptedLine(lineCount, totalLines - 1, line, e.getMessage()));
+            }
+        }
+        Result result = new Result(tasks, totalLines, lineCount, corruptedLines);
+        result.nextId = nextId;
+        return result;
+    }
+
+    /**
+     * Parses a range of chunks, splitting the range in half until it is a single chunk.
+     */
+    private static class ParseTask extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private ArrayList<MappedByteBuffer> chunks;
+        private int from;
+        private int to;
+
+        ParseTask(ArrayList<MappedByteBuffer> chunks, int from, int to) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from == 1) {
+                return parseChunk(chunks.get(from));
+            }
+            int middle = (from + to) >>> 1;
+            ParseTask left = new ParseTask(chunks, from, middle);
+            ParseTask right = new ParseTask(chunks, middle, to);
+            right.fork();
+            Result result = left.compute();
+            Result rightResult = right.join();
+            result.tasks.addAll(rightResult.tasks);
+            result.corruptedCount += rightResult.corruptedCount;
+            result.nextId = Math.max(result.nextId, rightResult.nextId);
+            for (CorruptedLine line : rightResult.corruptedLines) {
+                line.lineNumber += result.lineCount;
+                line.entryIndex += result.totalLines;
+                result.corruptedLines.add(line);
+            }
+            result.totalLines += rightResult.totalLines;
+            result.lineCount += rightResult.lineCount;
+            return result;
+        }
+    }
+}
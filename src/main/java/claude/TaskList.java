@@ -1,36 +1,274 @@
 package claude;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
 
 /**
  * Contains the task list and provides operations to add, delete, and retrieve tasks.
+ * Every task gets a stable numeric ID, and IDs increase along the list.
+ * Tasks are kept in a slot table in list order, where a deleted task leaves an empty slot
+ * behind until the table is compacted. A Fenwick tree counting the tasks left in each range
+ * of slots turns positions into slots, so positional access and deletion take O(log n).
+ * Each search index is built the first time a large list needs it and kept up to date afterwards.
+ * Scans that no index can answer are split across the cores once the list is large enough.
+ * In compact mode the slots are rows of a {@link CompactTaskStore} instead of task objects,
+ * which takes several times less memory; tasks read from the list are then views built on demand.
  */
-public class TaskList {
-    private ArrayList<Task> tasks;
+public class TaskList implements Iterable<Task> {
+    private static final int INDEX_THRESHOLD = 1024;
+    private static final int MAX_SEARCH_SHARE = 4;
+    // Checking a candidate from an index costs several times as much as checking a task in a scan
+    static final int MAX_FIND_SHARE = 16;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int SCAN_CHUNK_SLOTS = 4096;
+    /** The list size from which scans run in parallel when no other threshold is set. */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 15;
+
+    // Slots are numbered from 1 to slotCount; an empty slot keeps the ID of the task it held
+    private Task[] slots;
+    // Holds the slots instead of the slots array in compact mode, where row i is slot i + 1
+    private CompactTaskStore store;
+    private int[] slotIds;
+    private int[] counts;
+    private int slotCount;
+    private int size;
+    private int nextId;
+    private KeywordIndex keywordIndex;
+    private DeadlineIndex deadlineIndex;
+    private EventIndex eventIndex;
+    private UndoLog history;
+    private int parallelThreshold;
 
     /**
      * Creates an empty task list.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this.nextId = 1;
+        this.parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+        rebuild(new ArrayList<>());
     }
 
     /**
      * Creates a task list with the given tasks.
+     * Tasks without an ID, such as those read from an older data file, are given one.
      *
      * @param tasks The initial list of tasks.
      */
     public TaskList(ArrayList<Task> tasks) {
-        this.tasks = tasks;
+        this(tasks, 1);
+    }
+
+    /**
+     * Creates a task list with the given tasks, never handing out IDs below the given one,
+     * so the IDs of tasks deleted before the list was saved are not reused.
+     * Tasks without an ID, such as those read from an older data file, are given one.
+     *
+     * @param tasks The initial list of tasks.
+     * @param nextId The lowest ID new tasks may get.
+     */
+    public TaskList(ArrayList<Task> tasks, int nextId) {
+        this.nextId = Math.max(1, nextId);
+        this.parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+        assignIds(tasks);
+        rebuild(tasks);
+    }
+
+    private void assignIds(List<Task> tasks) {
+        int lastId = 0;
+        for (Task task : tasks) {
+            if (task.getId() == 0) {
+                task.setId(++lastId);
+            } else if (task.getId() > lastId) {
+                lastId = task.getId();
+            } else {
+                // IDs out of order can only come from a damaged file, so start again from 1
+                lastId = 0;
+                for (Task renumbered : tasks) {
+                    renumbered.setId(++lastId);
+                }
+                break;
+            }
+        }
+        nextId = Math.max(nextId, lastId + 1);
+    }
+
+    private void rebuild(List<Task> tasks) {
+        int capacity = Math.max(INITIAL_CAPACITY, tasks.size() + tasks.size() / 2);
+        if (store != null) {
+            store = CompactTaskStore.of(tasks);
+        } else {
+            slots = new Task[capacity + 1];
+        }
+        slotIds = new int[capacity + 1];
+        counts = new int[capacity + 1];
+        slotCount = tasks.size();
+        size = tasks.size();
+        for (int slot = 1; slot <= slotCount; slot++) {
+            if (store == null) {
+                slots[slot] = tasks.get(slot - 1);
+            }
+            slotIds[slot] = tasks.get(slot - 1).getId();
+            counts[slot]++;
+            int parent = slot + (slot & -slot);
+            if (parent <= slotCount) {
+                counts[parent] += counts[slot];
+            }
+        }
     }
 
     /**
-     * Adds a task to the list.
+     * Adds a task to the end of the list, giving it an ID if it does not have a fitting one.
      *
      * @param task The task to add.
      */
     public void add(Task task) {
-        tasks.add(task);
+        append(task);
+    }
+
+    // Kept apart from add, so insert does not re-enter a subclass that locks add
+    private void append(Task task) {
+        int lastId = slotCount > 0 ? slotIds[slotCount] : 0;
+        if (task.getId() <= lastId) {
+            task.setId(nextId++);
+        }
+        nextId = Math.max(nextId, task.getId() + 1);
+        if (slotCount + 1 == slotIds.length) {
+            int capacity = slotIds.length * 2;
+            if (store == null) {
+                slots = Arrays.copyOf(slots, capacity);
+            }
+            slotIds = Arrays.copyOf(slotIds, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        int slot = ++slotCount;
+        if (store == null) {
+            slots[slot] = task;
+        } else {
+            store.add(task);
+        }
+        slotIds[slot] = task.getId();
+        counts[slot] = 1 + prefixCount(slot - 1) - prefixCount(slot - (slot & -slot));
+        size++;
+        index(task);
+    }
+
+    /**
+     * Inserts a task at the given index, shifting later tasks back by one.
+     * A deleted task put back in its old place, as undo does, reuses its old slot in O(log n).
+     * The task keeps its ID, which must lie between the IDs of its new neighbours.
+     *
+     * @param index The zero-based index the task will have.
+     * @param task The task to insert.
+     * @throws IllegalArgumentException If the task's ID does not fit between its new neighbours.
+     */
+    public void insert(int index, Task task) {
+        int slot = findSlotById(task.getId());
+        if (slot > 0 && isEmptySlot(slot) && prefixCount(slot) == index) {
+            fillSlot(slot, task);
+            updateCount(slot, 1);
+            size++;
+            index(task);
+            return;
+        }
+        if (index == size) {
+            append(task);
+            return;
+        }
+        ArrayList<Task> tasks = toArrayList();
+        int previousId = index > 0 ? tasks.get(index - 1).getId() : 0;
+        if (task.getId() <= previousId || task.getId() >= tasks.get(index).getId()) {
+            // Giving the task another ID would break references to it, and renumbering the rest theirs
+            throw new IllegalArgumentException("Task ID " + task.getId() + " does not fit at index " + index);
+        }
+        tasks.add(index, task);
+        nextId = Math.max(nextId, task.getId() + 1);
+        rebuild(tasks);
+        dropIndexes();
+    }
+
+    /**
+     * Inserts several tasks, shifting the other tasks back.
+     * Tasks put back in their old slots, as undo does, take O(log n) each; the rest are merged
+     * into the list in a single pass, after which the indexes are rebuilt the next time they are needed.
+     * Each task keeps its ID, which must lie between the IDs of its new neighbours.
+     * Nothing is inserted if any ID does not fit.
+     *
+     * @param indices The zero-based indices the tasks will have, in ascending order.
+     * @param inserted The tasks to insert, in the same order.
+     * @throws IllegalArgumentException If a task's ID does not fit between its new neighbours.
+     */
+    public void insertAll(int[] indices, List<Task> inserted) {
+        for (int i = 0; i < indices.length; i++) {
+            if (indices[i] < 0 || indices[i] >= size + indices.length
+                    || (i > 0 && indices[i] <= indices[i - 1])) {
+                throw new IllegalArgumentException("Index " + indices[i] + " is out of order or out of range");
+            }
+        }
+        int[] filledSlots = new int[indices.length];
+        int filledCount = 0;
+        int[] mergedIndices = new int[indices.length];
+        int mergedCount = 0;
+        for (int i = 0; i < indices.length; i++) {
+            Task task = inserted.get(i);
+            int slot = findSlotById(task.getId());
+            // Tasks merged in later still come before this one, so it lands that much earlier for now
+            if (slot > 0 && isEmptySlot(slot) && prefixCount(slot) == indices[i] - mergedCount) {
+                fillSlot(slot, task);
+                updateCount(slot, 1);
+                size++;
+                index(task);
+                filledSlots[filledCount++] = slot;
+            } else {
+                mergedIndices[mergedCount++] = i;
+            }
+        }
+        if (mergedCount == 0) {
+            return;
+        }
+        ArrayList<Task> merged = new ArrayList<>(size + mergedCount);
+        Iterator<Task> existing = slotIterator(0);
+        int previousId = 0;
+        int next = 0;
+        int newId = nextId;
+        while (next < mergedCount || existing.hasNext()) {
+            boolean isInserted = next < mergedCount && indices[mergedIndices[next]] == merged.size();
+            Task task = isInserted ? inserted.get(mergedIndices[next++]) : existing.next();
+            if (isInserted && !existing.hasNext() && task.getId() <= previousId) {
+                // Past the end of the list, a task without a fitting ID gets a new one, as add does
+                task.setId(newId++);
+            }
+            if (task.getId() <= previousId) {
+                // Giving the task another ID would break references to it, and renumbering the rest theirs
+                unfill(filledSlots, filledCount);
+                throw new IllegalArgumentException("Task ID " + task.getId() + " does not fit at index "
+                        + merged.size());
+            }
+            previousId = task.getId();
+            merged.add(task);
+        }
+        nextId = Math.max(newId, previousId + 1);
+        rebuild(merged);
+        dropIndexes();
+    }
+
+    private void unfill(int[] filledSlots, int filledCount) {
+        for (int i = 0; i < filledCount; i++) {
+            Task task = taskAt(filledSlots[i]);
+            emptySlot(filledSlots[i]);
+            updateCount(filledSlots[i], -1);
+            size--;
+            unindex(task);
+        }
     }
 
     /**
@@ -40,17 +278,224 @@ public class TaskList {
      * @return The removed task.
      */
     public Task delete(int index) {
-        return tasks.remove(index);
+        Objects.checkIndex(index, size);
+        int slot = findSlot(index);
+        Task removed = taskAt(slot);
+        emptySlot(slot);
+        updateCount(slot, -1);
+        size--;
+        unindex(removed);
+        compactIfSparse();
+        return removed;
+    }
+
+    /**
+     * Deletes several tasks, each in O(log n).
+     *
+     * @param indices The distinct zero-based indices of the tasks to delete, in ascending order.
+     * @return The removed tasks, in list order.
+     */
+    public ArrayList<Task> deleteAll(int[] indices) {
+        int[] deletedSlots = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            Objects.checkIndex(indices[i], size);
+            deletedSlots[i] = findSlot(indices[i]);
+        }
+        ArrayList<Task> removed = new ArrayList<>(indices.length);
+        for (int slot : deletedSlots) {
+            Task task = taskAt(slot);
+            removed.add(task);
+            emptySlot(slot);
+            updateCount(slot, -1);
+            size--;
+            unindex(task);
+        }
+        compactIfSparse();
+        return removed;
+    }
+
+    private void compactIfSparse() {
+        if (slotCount > INITIAL_CAPACITY && slotCount - size > size) {
+            rebuild(toArrayList());
+        }
+    }
+
+    private ArrayList<Task> toArrayList() {
+        ArrayList<Task> tasks = new ArrayList<>(size);
+        for (Task task : inListOrder()) {
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private Task taskAt(int slot) {
+        return store == null ? slots[slot] : store.get(slot - 1);
+    }
+
+    private boolean isEmptySlot(int slot) {
+        return store == null ? slots[slot] == null : store.isEmpty(slot - 1);
+    }
+
+    private void fillSlot(int slot, Task task) {
+        if (store == null) {
+            slots[slot] = task;
+        } else {
+            store.set(slot - 1, task);
+        }
+    }
+
+    private void emptySlot(int slot) {
+        if (store == null) {
+            slots[slot] = null;
+        } else {
+            store.clear(slot - 1);
+        }
+    }
+
+    private int prefixCount(int slot) {
+        int count = 0;
+        for (; slot > 0; slot -= slot & -slot) {
+            count += counts[slot];
+        }
+        return count;
+    }
+
+    private void updateCount(int slot, int delta) {
+        for (; slot <= slotCount; slot += slot & -slot) {
+            counts[slot] += delta;
+        }
+    }
+
+    /**
+     * Returns the slot holding the task at the given zero-based index.
+     */
+    private int findSlot(int index) {
+        int remaining = index + 1;
+        int slot = 0;
+        for (int step = Integer.highestOneBit(slotCount); step > 0; step >>= 1) {
+            if (slot + step <= slotCount && counts[slot + step] < remaining) {
+                slot += step;
+                remaining -= counts[slot];
+            }
+        }
+        return slot + 1;
+    }
+
+    /**
+     * Returns the slot that holds or held the task with the given ID, or 0 if there is none.
+     */
+    private int findSlotById(int id) {
+        int found = Arrays.binarySearch(slotIds, 1, slotCount + 1, id);
+        return id > 0 && found > 0 ? found : 0;
+    }
+
+    /**
+     * Returns the position of the task with the given ID.
+     *
+     * @param id The ID of the task.
+     * @return The zero-based index of the task, or -1 if no task in the list has that ID.
+     */
+    public int indexOfId(int id) {
+        int slot = findSlotById(id);
+        if (slot == 0 || isEmptySlot(slot)) {
+            return -1;
+        }
+        return prefixCount(slot) - 1;
+    }
+
+    private void index(Task task) {
+        if (keywordIndex != null) {
+            keywordIndex.add(task, task.getId());
+        }
+        if (deadlineIndex != null) {
+            deadlineIndex.add(task, task.getId());
+        }
+        if (eventIndex != null) {
+            eventIndex.add(task, task.getId());
+        }
+    }
+
+    private void unindex(Task task) {
+        if (keywordIndex != null) {
+            keywordIndex.remove(task, task.getId());
+        }
+        if (deadlineIndex != null) {
+            deadlineIndex.remove(task, task.getId());
+        }
+        if (eventIndex != null) {
+            eventIndex.remove(task, task.getId());
+        }
+    }
+
+    private void dropIndexes() {
+        keywordIndex = null;
+        deadlineIndex = null;
+        eventIndex = null;
+    }
+
+    /**
+     * Returns the lowest ID a new task may get. It is above every ID the list has handed out,
+     * including those of tasks deleted since.
+     *
+     * @return The next free task ID.
+     */
+    public int getNextId() {
+        return nextId;
+    }
+
+    /**
+     * Returns the history of changes that can be undone, creating an empty one if needed.
+     *
+     * @return The undo history.
+     */
+    public UndoLog getHistory() {
+        if (history == null) {
+            history = new UndoLog();
+        }
+        return history;
+    }
+
+    /**
+     * Replaces the history of changes that can be undone.
+     * New tasks get IDs above any in the history, so tasks it can bring back keep theirs.
+     *
+     * @param history The new undo history.
+     */
+    public void setHistory(UndoLog history) {
+        this.history = history;
+        nextId = Math.max(nextId, history.getMaxId() + 1);
     }
 
     /**
      * Returns the task at the given index.
+     * In compact mode this is a view built from the store, so its status is changed through {@link #setDone}.
      *
      * @param index The zero-based index of the task.
      * @return The task at the given index.
      */
     public Task get(int index) {
-        return tasks.get(index);
+        Objects.checkIndex(index, size);
+        return taskAt(findSlot(index));
+    }
+
+    /**
+     * Marks the task at the given index as done or not done, atomically outside compact mode.
+     *
+     * @param index The zero-based index of the task.
+     * @param isDone Whether the task is to be done.
+     * @return true if the status changed, false if the task already had it.
+     */
+    public boolean setDone(int index, boolean isDone) {
+        Objects.checkIndex(index, size);
+        int slot = findSlot(index);
+        if (store == null) {
+            return isDone ? slots[slot].markAsDone() : slots[slot].markAsNotDone();
+        }
+        if (store.isDone(slot - 1) == isDone) {
+            return false;
+        }
+        store.setDone(slot - 1, isDone);
+        return true;
     }
 
     /**
@@ -59,15 +504,442 @@ public class TaskList {
      * @return The size of the task list.
      */
     public int size() {
-        return tasks.size();
+        return size;
+    }
+
+    /**
+     * Returns an iterator over the tasks in list order.
+     *
+     * @return The iterator.
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        return iterator(0);
+    }
+
+    /**
+     * Returns an iterator over the tasks in list order, starting at the given index.
+     *
+     * @param fromIndex The zero-based index of the first task to return.
+     * @return The iterator.
+     */
+    public Iterator<Task> iterator(int fromIndex) {
+        return slotIterator(fromIndex);
+    }
+
+    private Iterable<Task> inListOrder() {
+        return () -> slotIterator(0);
+    }
+
+    private Iterator<Task> slotIterator(int fromIndex) {
+        int firstSlot = fromIndex < size ? findSlot(fromIndex) : slotCount + 1;
+        return new Iterator<>() {
+            private int slot = firstSlot;
+
+            @Override
+            public boolean hasNext() {
+                while (slot <= slotCount && isEmptySlot(slot)) {
+                    slot++;
+                }
+                return slot <= slotCount;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return taskAt(slot++);
+            }
+        };
+    }
+
+    /**
+     * Sets the list size from which scans are split across the cores of the common fork/join pool.
+     * Below it, scanning on one thread is cheaper than handing out the work.
+     *
+     * @param parallelThreshold The smallest list size scanned in parallel.
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Switches compact mode on or off, moving the tasks into a {@link CompactTaskStore} or back out of it.
+     * Compact lists keep no search indexes, as those would hold on to a task object for each entry,
+     * so every search scans the list, in parallel once it is large enough.
+     *
+     * @param isCompact Whether the tasks are to be kept in compact form.
+     */
+    public void setCompact(boolean isCompact) {
+        if (isCompact == (store != null)) {
+            return;
+        }
+        ArrayList<Task> tasks = toArrayList();
+        store = isCompact ? new CompactTaskStore() : null;
+        slots = null;
+        dropIndexes();
+        rebuild(tasks);
+    }
+
+    /**
+     * Returns whether the tasks are kept in compact form.
+     *
+     * @return true in compact mode.
+     */
+    public boolean isCompact() {
+        return store != null;
+    }
+
+    /**
+     * Returns the tasks the matcher accepts, in list order.
+     * Lists at or above the parallel threshold are scanned in chunks on the common fork/join pool,
+     * so the matcher must be safe to call from several threads at once.
+     *
+     * @param matcher The condition a task must meet.
+     * @return A new list of the accepted tasks.
+     */
+    public ArrayList<Task> filter(Predicate<Task> matcher) {
+        return scan(matcher);
+    }
+
+    // Kept apart from filter, so search does not re-enter a subclass that locks filter
+    private ArrayList<Task> scan(Predicate<Task> matcher) {
+        if (size < parallelThreshold) {
+            ArrayList<Task> matching = new ArrayList<>();
+            for (Task task : inListOrder()) {
+                if (matcher.test(task)) {
+                    matching.add(task);
+                }
+            }
+            return matching;
+        }
+        return ForkJoinPool.commonPool().invoke(new ScanTask(this::taskAt, 1, slotCount + 1, matcher));
+    }
+
+    /**
+     * Scans a range of slots, splitting it in half until it is at most one chunk,
+     * and joins the matches of the halves in order.
+     */
+    private static class ScanTask extends RecursiveTask<ArrayList<Task>> {
+        private static final long serialVersionUID = 1L;
+
+        private IntFunction<Task> taskAt;
+        private int from;
+        private int to;
+        private Predicate<Task> matcher;
+
+        ScanTask(IntFunction<Task> taskAt, int from, int to, Predicate<Task> matcher) {
+            this.taskAt = taskAt;
+            this.from = from;
+            this.to = to;
+            this.matcher = matcher;
+        }
+
+        @Override
+        protected ArrayList<Task> compute() {
+            if (to - from <= SCAN_CHUNK_SLOTS) {
+                ArrayList<Task> matching = new ArrayList<>();
+                for (int slot = from; slot < to; slot++) {
+                    Task task = taskAt.apply(slot);
+                    if (task != null && matcher.test(task)) {
+                        matching.add(task);
+                    }
+                }
+                return matching;
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(taskAt, from, middle, matcher);
+            ScanTask right = new ScanTask(taskAt, middle, to, matcher);
+            right.fork();
+            ArrayList<Task> matching = left.compute();
+            matching.addAll(right.join());
+            return matching;
+        }
     }
 
     /**
-     * Returns the underlying list of tasks.
+     * Returns the number of tasks that pass the filter.
      *
-     * @return The ArrayList of tasks.
+     * @param filter The status filter to apply.
+     * @return The number of matching tasks.
+     */
+    public int count(StatusFilter filter) {
+        if (filter == StatusFilter.ALL) {
+            return size;
+        }
+        if (store != null) {
+            // Empty rows are never done, so the done column alone gives the count
+            int doneCount = store.countDone();
+            return filter == StatusFilter.DONE ? doneCount : size - doneCount;
+        }
+        int count = 0;
+        for (Task task : inListOrder()) {
+            if (filter.matches(task)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a copy of the tasks in list order.
+     *
+     * @return A new ArrayList of the tasks.
      */
     public ArrayList<Task> getTasks() {
-        return tasks;
+        return toArrayList();
+    }
+
+    /**
+     * Returns the tasks whose description contains the keyword, in list order.
+     * Large lists answer this from the keyword index, unless the keyword brings up a large share
+     * of the list; the result is the same as a full scan. The index is only built once a scan
+     * finds a keyword that few tasks contain, as only such keywords are faster to look up in it.
+     *
+     * @param keyword The substring to look for.
+     * @return A new task list of the matching tasks.
+     */
+    public TaskList find(String keyword) {
+        TaskList matching = new TaskList();
+        Iterable<Task> found;
+        if (keywordIndex == null) {
+            ArrayList<Task> scanned = scan(task -> task.getDescription().contains(keyword));
+            if (isIndexable() && scanned.size() <= size / MAX_FIND_SHARE) {
+                getKeywordIndex();
+            }
+            found = scanned;
+        } else if (getKeywordIndex().estimate(keyword) > size / MAX_FIND_SHARE) {
+            // Merging the postings of a common keyword costs more than checking every task
+            found = scan(task -> task.getDescription().contains(keyword));
+        } else {
+            ArrayList<Task> candidates = new ArrayList<>();
+            for (Task task : getKeywordIndex().candidates(keyword)) {
+                if (task.getDescription().contains(keyword)) {
+                    candidates.add(task);
+                }
+            }
+            found = candidates;
+        }
+        for (Task task : found) {
+            matching.add(task);
+        }
+        return matching;
+    }
+
+    /**
+     * Returns the tasks matching a find query, best first; tasks scoring the same stay in list order.
+     * Large lists only score the candidates the keyword index finds, unless they are a large share
+     * of the list; the result is the same as scoring every task.
+     *
+     * @param query The query.
+     * @return A new list of the matching tasks.
+     */
+    public ArrayList<Task> search(FindQuery query) {
+        List<Task> indexed = null;
+        if (keywordIndex != null || isIndexable()) {
+            // Collecting a large share of the list from the index costs more than scoring it all
+            indexed = getKeywordIndex().candidates(query, size / MAX_SEARCH_SHARE);
+        }
+        ArrayList<Task> matches = new ArrayList<>();
+        if (indexed == null) {
+            matches = scan(task -> query.score(task.getDescription()) > 0);
+        } else {
+            for (Task task : indexed) {
+                if (query.score(task.getDescription()) > 0) {
+                    matches.add(task);
+                }
+            }
+        }
+        ArrayList<Double> scores = new ArrayList<>(matches.size());
+        for (Task task : matches) {
+            scores.add(query.score(task.getDescription()));
+        }
+        Integer[] order = new Integer[matches.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        // A stable sort keeps tasks with the same score in list order
+        Arrays.sort(order, (a, b) -> Double.compare(scores.get(b), scores.get(a)));
+        ArrayList<Task> ranked = new ArrayList<>(order.length);
+        for (Integer index : order) {
+            ranked.add(matches.get(index));
+        }
+        return ranked;
+    }
+
+    /**
+     * Returns the deadlines due between the two dates, both inclusive, in list order.
+     * Large lists answer this from the deadline index instead of scanning every task,
+     * unless the range covers a large share of the list.
+     *
+     * @param start The first day of the range.
+     * @param end The last day of the range.
+     * @return A new task list of the matching deadlines.
+     */
+    public TaskList findDue(LocalDate start, LocalDate end) {
+        return findDue(start, end, false);
+    }
+
+    /**
+     * Returns the deadlines due between the two dates, both inclusive, in list order,
+     * optionally together with the events overlapping that range.
+     *
+     * @param start The first day of the range.
+     * @param end The last day of the range.
+     * @param includesEvents Whether overlapping events are included as well.
+     * @return A new task list of the matching tasks.
+     */
+    public TaskList findDue(LocalDate start, LocalDate end, boolean includesEvents) {
+        TaskList matching = new TaskList();
+        Iterable<Task> found;
+        boolean isScanned = deadlineIndex == null && !isIndexable();
+        if (!isScanned) {
+            int count = getDeadlineIndex().count(start, end);
+            if (includesEvents) {
+                count += getEventIndex().count(start, end);
+            }
+            // Collecting a large share of the list from the indexes costs more than checking every task
+            isScanned = count > size / MAX_FIND_SHARE;
+        }
+        if (isScanned) {
+            found = scan(task -> isDueBetween(task, start, end)
+                    || (includesEvents && overlaps(task, start, end)));
+        } else {
+            TreeMap<Long, Task> indexed = getDeadlineIndex().between(start, end);
+            if (includesEvents) {
+                indexed.putAll(getEventIndex().overlapping(start, end));
+            }
+            found = indexed.values();
+        }
+        for (Task task : found) {
+            matching.add(task);
+        }
+        return matching;
+    }
+
+    /**
+     * Returns the events whose date range overlaps the two dates, both inclusive, in list order.
+     * Large lists answer this from the event interval index instead of scanning every task,
+     * unless the range covers a large share of the list.
+     *
+     * @param start The first day of the range.
+     * @param end The last day of the range.
+     * @return A new task list of the matching events.
+     */
+    public TaskList findEvents(LocalDate start, LocalDate end) {
+        TaskList matching = new TaskList();
+        Iterable<Task> found;
+        if ((eventIndex == null && !isIndexable())
+                || getEventIndex().count(start, end) > size / MAX_FIND_SHARE) {
+            found = scan(task -> overlaps(task, start, end));
+        } else {
+            found = getEventIndex().overlapping(start, end).values();
+        }
+        for (Task task : found) {
+            matching.add(task);
+        }
+        return matching;
+    }
+
+    /**
+     * Returns about how many tasks {@link #find} has to look at for the keyword, at most.
+     * Small and compact lists are scanned anyway, so for them this is the size of the list.
+     *
+     * @param keyword The substring to look for.
+     * @return The upper bound on the number of candidates.
+     */
+    public int estimateFind(String keyword) {
+        if (keywordIndex == null && !isIndexable()) {
+            return size;
+        }
+        return getKeywordIndex().estimate(keyword);
+    }
+
+    /**
+     * Returns how many deadlines are due between the two dates, both inclusive.
+     * Small and compact lists are scanned anyway, so for them this is the size of the list.
+     *
+     * @param start The first day of the range.
+     * @param end The last day of the range.
+     * @return The number of matching deadlines.
+     */
+    public int estimateDue(LocalDate start, LocalDate end) {
+        if (deadlineIndex == null && !isIndexable()) {
+            return size;
+        }
+        return getDeadlineIndex().count(start, end);
+    }
+
+    /**
+     * Returns how many events overlap the two dates, both inclusive.
+     * Small and compact lists are scanned anyway, so for them this is the size of the list.
+     *
+     * @param start The first day of the range.
+     * @param end The last day of the range.
+     * @return The number of matching events.
+     */
+    public int estimateEvents(LocalDate start, LocalDate end) {
+        if (eventIndex == null && !isIndexable()) {
+            return size;
+        }
+        return getEventIndex().count(start, end);
+    }
+
+    /**
+     * Returns whether the list is worth building a search index for: it is large and not compact.
+     */
+    private boolean isIndexable() {
+        return size >= INDEX_THRESHOLD && store == null;
+    }
+
+    private static boolean isDueBetween(Task task, LocalDate start, LocalDate end) {
+        if (!(task instanceof Deadline)) {
+            return false;
+        }
+        LocalDate byDate = ((Deadline) task).getByDate();
+        return byDate != null && !byDate.isBefore(start) && !byDate.isAfter(end);
+    }
+
+    private static boolean overlaps(Task task, LocalDate start, LocalDate end) {
+        long[] interval = EventIndex.getInterval(task);
+        return interval != null && interval[0] <= end.toEpochDay() && interval[1] >= start.toEpochDay();
+    }
+
+    // Queries may run side by side under a shared lock, so the lazy builds must not race
+    private synchronized KeywordIndex getKeywordIndex() {
+        if (keywordIndex == null) {
+            // Published only once complete, as searches check the field without the lock
+            KeywordIndex built = new KeywordIndex();
+            for (Task task : inListOrder()) {
+                built.add(task, task.getId());
+            }
+            keywordIndex = built;
+        }
+        return keywordIndex;
+    }
+
+    private synchronized DeadlineIndex getDeadlineIndex() {
+        if (deadlineIndex == null) {
+            // Published only once complete, as searches check the field without the lock
+            DeadlineIndex built = new DeadlineIndex();
+            for (Task task : inListOrder()) {
+                built.add(task, task.getId());
+            }
+            deadlineIndex = built;
+        }
+        return deadlineIndex;
+    }
+
+    private synchronized EventIndex getEventIndex() {
+        if (eventIndex == null) {
+            // Published only once complete, as searches check the field without the lock
+            EventIndex built = new EventIndex();
+            for (Task task : inListOrder()) {
+                built.add(task, task.getId());
+            }
+            eventIndex = built;
+        }
+        return eventIndex;
     }
 }
@@ -0,0 +1,253 @@
+package claude;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+/**
+ * A query command's conditions on task type, status, dates and text, all of which a task must meet.
+ * Running it picks one access path: the deadline index for a due date condition, the event index
+ * for a during condition, the keyword index for a text condition, or a scan of the whole list.
+ * It takes whichever the indexes estimate brings up the fewest candidates, then checks every
+ * condition on those candidates; a scan of a large list runs in parallel.
+ */
+public class TaskQuery {
+    private ArrayList<Condition> conditions;
+
+    /**
+     * Creates a query without conditions, which every task meets.
+     */
+    public TaskQuery() {
+        this.conditions = new ArrayList<>();
+    }
+
+    /**
+     * The kinds of condition a query can have.
+     */
+    public enum Kind {
+        /** The task is a todo, deadline or event. */
+        TYPE,
+        /** The task is done, or not done. */
+        DONE,
+        /** The description contains a word. */
+        TEXT,
+        /** The deadline is due within a date range. */
+        DUE,
+        /** The event overlaps a date range. */
+        DURING
+    }
+
+    private static class Condition {
+        private Kind kind;
+        private Class<? extends Task> type;
+        private boolean isDone;
+        private String text;
+        private LocalDate start;
+        private LocalDate end;
+
+        Condition(Kind kind) {
+            this.kind = kind;
+        }
+
+        boolean matches(Task task) {
+            switch (kind) {
+            case TYPE:
+                return type.isInstance(task);
+            case DONE:
+                return task.isDone() == isDone;
+            case TEXT:
+                return task.getDescription().contains(text);
+            case DUE:
+                if (!(task instanceof Deadline) || ((Deadline) task).getByDate() == null) {
+                    return false;
+                }
+                LocalDate byDate = ((Deadline) task).getByDate();
+                return !byDate.isBefore(start) && !byDate.isAfter(end);
+            default:
+                long[] interval = EventIndex.getInterval(task);
+                return interval != null && interval[0] <= end.toEpochDay() && interval[1] >= start.toEpochDay();
+            }
+        }
+
+        /**
+         * Returns about how many tasks this condition's index brings up, or -1 if it has no index.
+         */
+        int estimate(TaskList tasks) {
+            switch (kind) {
+            case TEXT:
+                return tasks.estimateFind(text);
+            case DUE:
+                return tasks.estimateDue(start, end);
+            case DURING:
+                return tasks.estimateEvents(start, end);
+            default:
+                return -1;
+            }
+        }
+
+        TaskList fetch(TaskList tasks) {
+            switch (kind) {
+            case TEXT:
+                return tasks.find(text);
+            case DUE:
+                return tasks.findDue(start, end);
+            default:
+                return tasks.findEvents(start, end);
+            }
+        }
+
+        String describe() {
+            switch (kind) {
+            case TYPE:
+                return "type:" + type.getSimpleName().toLowerCase();
+            case DONE:
+                return "done:" + (isDone ? "yes" : "no");
+            case TEXT:
+                return "text:" + text;
+            default:
+                return kind.name().toLowerCase() + " " + describeRange();
+            }
+        }
+
+        private String describeRange() {
+            if (start.equals(LocalDate.MIN)) {
+                return "until " + end;
+            } else if (end.equals(LocalDate.MAX)) {
+                return "from " + start;
+            }
+            return start.equals(end) ? "on " + start : "from " + start + " to " + end;
+        }
+    }
+
+    /**
+     * Requires tasks to be of a type.
+     *
+     * @param type Todo, Deadline or Event.
+     */
+    public void requireType(Class<? extends Task> type) {
+        Condition condition = new Condition(Kind.TYPE);
+        condition.type = type;
+        conditions.add(condition);
+    }
+
+    /**
+     * Requires tasks to be done, or not done.
+     *
+     * @param isDone Whether tasks must be done.
+     */
+    public void requireDone(boolean isDone) {
+        Condition condition = new Condition(Kind.DONE);
+        condition.isDone = isDone;
+        conditions.add(condition);
+    }
+
+    /**
+     * Requires task descriptions to contain a word.
+     *
+     * @param text The text to look for.
+     */
+    public void requireText(String text) {
+        Condition condition = new Condition(Kind.TEXT);
+        condition.text = text;
+        conditions.add(condition);
+    }
+
+    /**
+     * Requires tasks to be deadlines due within a date range, or events overlapping it.
+     *
+     * @param kind {@link Kind#DUE} or {@link Kind#DURING}.
+     * @param start The first day of the range, or {@link LocalDate#MIN} for no lower bound.
+     * @param end The last day of the range, or {@link LocalDate#MAX} for no upper bound.
+     */
+    public void requireDates(Kind kind, LocalDate start, LocalDate end) {
+        Condition condition = new Condition(kind);
+        condition.start = start;
+        condition.end = end;
+        conditions.add(condition);
+    }
+
+    /**
+     * Returns whether the query has no conditions.
+     *
+     * @return True if every task meets the query.
+     */
+    public boolean isEmpty() {
+        return conditions.isEmpty();
+    }
+
+    /**
+     * Returns the condition whose index brings up the fewest candidates,
+     * or null if scanning the whole list is as cheap as any index.
+     * An index bringing up more than a small share of the list loses to a single scan checking every condition.
+     */
+    private Condition choosePath(TaskList tasks) {
+        Condition best = null;
+        int bestEstimate = tasks.size() / TaskList.MAX_FIND_SHARE + 1;
+        for (Condition condition : conditions) {
+            int estimate = condition.estimate(tasks);
+            if (estimate >= 0 && estimate < bestEstimate) {
+                best = condition;
+                bestEstimate = estimate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the tasks meeting every condition, in list order.
+     *
+     * @param tasks The task list to query.
+     * @return A new task list of the matching tasks.
+     */
+    public TaskList run(TaskList tasks) {
+        Condition path = choosePath(tasks);
+        TaskList matching = new TaskList();
+        if (path == null) {
+            for (Task task : tasks.filter(task -> matchesAll(task, null))) {
+                matching.add(task);
+            }
+            return matching;
+        }
+        for (Task task : path.fetch(tasks)) {
+            if (matchesAll(task, path)) {
+                matching.add(task);
+            }
+        }
+        return matching;
+    }
+
+    private boolean matchesAll(Task task, Condition checked) {
+        for (Condition condition : conditions) {
+            if (condition != checked && !condition.matches(task)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Describes how the query would run against a task list: its access path and the conditions
+     * checked on each candidate.
+     *
+     * @param tasks The task list the query would run against.
+     * @return The description of the plan.
+     */
+    public String explain(TaskList tasks) {
+        Condition path = choosePath(tasks);
+        StringBuilder plan = new StringBuilder();
+        if (path == null) {
+            plan.append("scan all ").append(tasks.size()).append(" tasks");
+        } else {
+            plan.append(path.kind == Kind.TEXT ? "keyword" : path.kind == Kind.DUE ? "deadline" : "event")
+                    .append(" index for ").append(path.describe())
+                    .append(" (at most ").append(path.estimate(tasks)).append(" tasks)");
+        }
+        String separator = ", then check ";
+        for (Condition condition : conditions) {
+            if (condition != path) {
+                plan.append(separator).append(condition.describe());
+                separator = ", ";
+            }
+        }
+        return plan.toString();
+    }
+}
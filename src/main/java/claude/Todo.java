@@ -25,9 +25,11 @@ public class Todo extends Task {
 
     /**
      * {@inheritDoc}
+     * Includes the todo type prefix.
      */
     @Override
-    public String toString() {
-        return "[T]" + super.toString();
+    public void appendTo(StringBuilder out) {
+        out.append("[T]");
+        super.appendTo(out);
     }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package claude;
+
+/**
+ * Splits command arguments into whitespace-separated tokens, one at a time,
+ * and checks the shape of date tokens without regular expressions.
+ */
+public class Tokenizer {
+    private String text;
+    private int position;
+
+    /**
+     * Creates a tokenizer over the given text.
+     *
+     * @param text The text to split.
+     */
+    public Tokenizer(String text) {
+        this.text = text;
+        this.position = 0;
+    }
+
+    /**
+     * Returns whether there is another token.
+     *
+     * @return True if a token remains.
+     */
+    public boolean hasNext() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        return position < text.length();
+    }
+
+    /**
+     * Returns the next token.
+     *
+     * @return The next token, or null if there are no tokens left.
+     */
+    public String next() {
+        if (!hasNext()) {
+            return null;
+        }
+        int start = position;
+        while (position < text.length() && !Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        return text.substring(start, position);
+    }
+
+    /**
+     * Returns whether the value has the shape of a yyyy-mm-dd date.
+     * The date itself may still be invalid, such as 2025-02-30.
+     *
+     * @param value The value to check.
+     * @return True if the value is four digits, two digits and two digits separated by dashes.
+     */
+    public static boolean isIsoDate(String value) {
+        return value.length() == 10 && startsWithIsoDate(value);
+    }
+
+    /**
+     * Returns whether the value starts with something shaped like a yyyy-mm-dd date.
+     *
+     * @param value The value to check.
+     * @return True if the first ten characters look like a date.
+     */
+    public static boolean startsWithIsoDate(String value) {
+        return value.length() >= 10 && isIsoMonthAt(value) && value.charAt(7) == '-'
+                && isDigit(value, 8) && isDigit(value, 9);
+    }
+
+    /**
+     * Returns whether the value has the shape of a yyyy-mm month.
+     *
+     * @param value The value to check.
+     * @return True if the value is four digits and two digits separated by a dash.
+     */
+    public static boolean isIsoMonth(String value) {
+        return value.length() == 7 && isIsoMonthAt(value);
+    }
+
+    private static boolean isIsoMonthAt(String value) {
+        return isDigit(value, 0) && isDigit(value, 1) && isDigit(value, 2) && isDigit(value, 3)
+                && value.charAt(4) == '-' && isDigit(value, 5) && isDigit(value, 6);
+    }
+
+    private static boolean isDigit(String value, int index) {
+        char c = value.charAt(index);
+        return c >= '0' && c <= '9';
+    }
+}
@@ -1,22 +1,66 @@
 package claude;
 
+import java.io.InputStream;
+import java.io.PrintStream;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.Locale;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Scanner;
 
 /**
  * Deals with interactions with the user, including reading input and printing output.
+ * Output is collected in a buffer and written in one go when the next command is read,
+ * when {@link #flush()} is called, or when the buffer grows large.
  */
 public class Ui {
     private static final String LINE = "____________________________________________________________";
+    private static final String NEWLINE = System.lineSeparator();
+    private static final int FLUSH_THRESHOLD = 1 << 16;
+    private static final int STREAM_FLUSH_LINES = 256;
+
     private Scanner scanner;
+    private PrintStream out;
+    private StringBuilder buffer;
 
     /**
-     * Creates a new Ui and initializes the input scanner.
+     * Creates a new Ui that reads from standard input and writes to standard output.
      */
     public Ui() {
-        this.scanner = new Scanner(System.in);
+        this(System.in, System.out);
+    }
+
+    /**
+     * Creates a new Ui that reads from and writes to the given streams.
+     *
+     * @param in The stream to read commands from.
+     * @param out The stream to write output to.
+     */
+    public Ui(InputStream in, PrintStream out) {
+        this.scanner = new Scanner(in);
+        this.out = out;
+        this.buffer = new StringBuilder();
+    }
+
+    private void println(String text) {
+        buffer.append(text).append(NEWLINE);
+        flushIfFull();
+    }
+
+    private void flushIfFull() {
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes all buffered output to the output stream.
+     */
+    public void flush() {
+        if (buffer.length() > 0) {
+            out.append(buffer);
+            buffer.setLength(0);
+        }
+        out.flush();
     }
 
     /**
@@ -29,27 +73,27 @@ public class Ui {
                 + "| |___| | (_| | |_| | (_| |  __/\n"
                 + " \\____|_|\\__,_|\\__,_|\\__,_|\\___|\n";
 
-        System.out.println(LINE);
-        System.out.println("Hello from\n" + logo);
-        System.out.println("Hello! I'm Claude, your personal assistant.");
-        System.out.println("What can I do for you?");
-        System.out.println(LINE);
+        println(LINE);
+        println("Hello from\n" + logo);
+        println("Hello! I'm Claude, your personal assistant.");
+        println("What can I do for you?");
+        println(LINE);
     }
 
     /**
      * Prints the goodbye message.
      */
     public void showGoodbye() {
-        System.out.println(LINE);
-        System.out.println("Bye. Hope to see you again soon!");
-        System.out.println(LINE);
+        println(LINE);
+        println("Bye. Hope to see you again soon!");
+        println(LINE);
     }
 
     /**
      * Prints the divider line.
      */
     public void showLine() {
-        System.out.println(LINE);
+        println(LINE);
     }
 
     /**
@@ -58,14 +102,29 @@ public class Ui {
      * @param message The error message to display.
      */
     public void showError(String message) {
-        System.out.println("I'd love to help, but -- " + message);
+        println("I'd love to help, but -- " + message);
     }
 
     /**
      * Prints a loading error message when the save file cannot be loaded.
+     *
+     * @param message Why the file was not loaded.
+     */
+    public void showLoadingError(String message) {
+        println("Error loading tasks: " + message);
+    }
+
+    /**
+     * Asks whether to keep the tasks that could be read from a damaged save file.
+     *
+     * @param validCount The number of tasks that could be read.
+     * @return true if the user wants to keep them, false to start with an empty list.
      */
-    public void showLoadingError() {
-        System.out.println("Error loading tasks. Starting with an empty task list.");
+    public boolean askToRecover(int validCount) {
+        println("Would you like to recover the " + validCount + " valid "
+                + (validCount == 1 ? "task" : "tasks") + "?");
+        println("Enter 'yes' to recover, or 'no' to start fresh:");
+        return readCommand().trim().equalsIgnoreCase("yes");
     }
 
     /**
@@ -74,6 +133,7 @@ public class Ui {
      * @return The user's input string.
      */
     public String readCommand() {
+        flush();
         return scanner.nextLine();
     }
 
@@ -84,16 +144,88 @@ public class Ui {
      */
     public void showTaskList(TaskList tasks) {
         if (tasks.size() == 0) {
-            System.out.println("It seems you do not have any tasks yet.");
+            println("It seems you do not have any tasks yet.");
         } else if (tasks.size() == 1) {
-            System.out.println("Here is the task in your list:");
-            System.out.println("1." + tasks.get(0));
+            println("Here is the task in your list:");
+            println("1." + tasks.get(0));
         } else {
-            System.out.println("Here are the tasks in your list:");
-            for (int i = 0; i < tasks.size(); i++) {
-                System.out.println((i + 1) + "." + tasks.get(i));
+            println("Here are the tasks in your list:");
+            showNumberedTasks(tasks);
+        }
+    }
+
+    /**
+     * Prints one page of the tasks that pass the filter, numbered by their position in the full list.
+     * Only the tasks on the page are rendered.
+     *
+     * @param tasks The task list to display.
+     * @param filter Which tasks to show.
+     * @param page The one-based page number, which must not exceed the number of pages.
+     * @param pageSize The number of tasks per page.
+     * @param matchCount The number of tasks that pass the filter.
+     * @param showsIds Whether to show the ID of each task after its number.
+     */
+    public void showTaskPage(TaskList tasks, StatusFilter filter, int page, int pageSize, int matchCount,
+            boolean showsIds) {
+        if (matchCount == 0) {
+            println("It seems you do not have any " + filter.getLabel() + "tasks"
+                    + (filter == StatusFilter.ALL ? " yet." : "."));
+            return;
+        }
+        int pageCount = (matchCount + pageSize - 1) / pageSize;
+        println("Here are the " + filter.getLabel() + "tasks in your list (page " + page + " of "
+                + pageCount + "):");
+        int toSkip = (page - 1) * pageSize;
+        int start = 0;
+        if (filter == StatusFilter.ALL) {
+            start = toSkip;
+            toSkip = 0;
+        }
+        int shown = 0;
+        Iterator<Task> iterator = tasks.iterator(start);
+        for (int i = start; iterator.hasNext() && shown < pageSize; i++) {
+            Task task = iterator.next();
+            if (!filter.matches(task)) {
+                continue;
+            }
+            if (toSkip > 0) {
+                toSkip--;
+                continue;
             }
+            appendNumbered(i + 1, task, showsIds);
+            shown++;
         }
+        flushIfFull();
+    }
+
+    /**
+     * Writes the tasks that pass the filter in a single pass, sending each batch of lines
+     * to the output as soon as it is rendered instead of building the whole listing first.
+     *
+     * @param tasks The task list to display.
+     * @param filter Which tasks to show.
+     * @param showsIds Whether to show the ID of each task after its number.
+     */
+    public void streamTaskList(TaskList tasks, StatusFilter filter, boolean showsIds) {
+        println("Here are the " + filter.getLabel() + "tasks in your list:");
+        flush();
+        int shown = 0;
+        int number = 0;
+        for (Task task : tasks) {
+            number++;
+            if (!filter.matches(task)) {
+                continue;
+            }
+            appendNumbered(number, task, showsIds);
+            shown++;
+            if (shown % STREAM_FLUSH_LINES == 0) {
+                flush();
+            }
+        }
+        if (shown == 0) {
+            println("No matching tasks found.");
+        }
+        flush();
     }
 
     /**
@@ -103,9 +235,9 @@ public class Ui {
      * @param totalTasks The total number of tasks after adding.
      */
     public void showTaskAdded(Task task, int totalTasks) {
-        System.out.println("Got it. I've added this task:");
-        System.out.println("  " + task);
-        System.out.println("Now you have " + totalTasks + " "
+        println("Got it. I've added this task as #" + task.getId() + ":");
+        println("  " + task);
+        println("Now you have " + totalTasks + " "
                 + (totalTasks == 1 ? "task" : "tasks") + " in the list.");
     }
 
@@ -116,24 +248,58 @@ public class Ui {
      * @param totalTasks The total number of tasks after deletion.
      */
     public void showTaskDeleted(Task task, int totalTasks) {
-        System.out.println("Noted. I've removed this task:");
-        System.out.println("  " + task);
+        println("Noted. I've removed this task:");
+        println("  " + task);
+        if (totalTasks == 0) {
+            println("You have no tasks in the list now.");
+        } else {
+            println("Now you have " + totalTasks + " "
+                    + (totalTasks == 1 ? "task" : "tasks") + " in the list.");
+        }
+    }
+
+    /**
+     * Prints a message confirming several tasks have been deleted.
+     *
+     * @param removed The tasks that were removed.
+     * @param totalTasks The total number of tasks after deletion.
+     */
+    public void showTasksDeleted(List<Task> removed, int totalTasks) {
+        println("Noted. I've removed " + describeCount(removed.size()) + ":");
+        showIndentedTasks(removed);
         if (totalTasks == 0) {
-            System.out.println("You have no tasks in the list now.");
+            println("You have no tasks in the list now.");
         } else {
-            System.out.println("Now you have " + totalTasks + " "
+            println("Now you have " + totalTasks + " "
                     + (totalTasks == 1 ? "task" : "tasks") + " in the list.");
         }
     }
 
+    /**
+     * Prints a message confirming several tasks have been marked as done or not done.
+     *
+     * @param changed The tasks that were changed.
+     * @param isDone Whether the tasks were marked as done.
+     * @param skippedCount The number of selected tasks that already had that status.
+     */
+    public void showTasksMarked(List<Task> changed, boolean isDone, int skippedCount) {
+        println(isDone ? "Nice! I've marked " + describeCount(changed.size()) + " as done:"
+                : "OK, I've marked " + describeCount(changed.size()) + " as not done yet:");
+        showIndentedTasks(changed);
+        if (skippedCount > 0) {
+            println("Skipped " + skippedCount + " " + (skippedCount == 1 ? "task that was" : "tasks that were")
+                    + (isDone ? " already done." : " not done yet."));
+        }
+    }
+
     /**
      * Prints a message confirming a task has been marked as done.
      *
      * @param task The task that was marked.
      */
     public void showTaskMarked(Task task) {
-        System.out.println("Nice! I've marked this task as done:");
-        System.out.println("  " + task);
+        println("Nice! I've marked this task as done:");
+        println("  " + task);
     }
 
     /**
@@ -142,8 +308,60 @@ public class Ui {
      * @param task The task that was unmarked.
      */
     public void showTaskUnmarked(Task task) {
-        System.out.println("OK, I've marked this task as not done yet:");
-        System.out.println("  " + task);
+        println("OK, I've marked this task as not done yet:");
+        println("  " + task);
+    }
+
+    /**
+     * Prints a message confirming a change has been undone.
+     *
+     * @param operation The change that was undone.
+     */
+    public void showUndone(UndoLog.Operation operation) {
+        println("Done! I've undone: " + operation.getSummary());
+        showIndentedTasks(operation.getTasks());
+    }
+
+    /**
+     * Prints a message confirming a change has been redone.
+     *
+     * @param operation The change that was redone.
+     */
+    public void showRedone(UndoLog.Operation operation) {
+        println("Done! I've redone: " + operation.getSummary());
+        showIndentedTasks(operation.getTasks());
+    }
+
+    private void appendNumbered(int number, Task task, boolean showsId) {
+        buffer.append(number).append('.');
+        if (showsId) {
+            buffer.append('#').append(task.getId()).append(' ');
+        }
+        task.appendTo(buffer);
+        buffer.append(NEWLINE);
+    }
+
+    private void showNumberedTasks(Iterable<Task> tasks) {
+        int number = 0;
+        for (Task task : tasks) {
+            buffer.append(++number).append('.');
+            task.appendTo(buffer);
+            buffer.append(NEWLINE);
+            flushIfFull();
+        }
+    }
+
+    private static String describeCount(int count) {
+        return count == 1 ? "this task" : "these " + count + " tasks";
+    }
+
+    private void showIndentedTasks(List<Task> tasks) {
+        for (Task task : tasks) {
+            buffer.append("  ");
+            task.appendTo(buffer);
+            buffer.append(NEWLINE);
+            flushIfFull();
+        }
     }
 
     /**
@@ -154,25 +372,57 @@ public class Ui {
      * @param end The end date of the range.
      */
     public void showDueList(TaskList matching, LocalDate start, LocalDate end) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM d yyyy", Locale.ENGLISH);
-        String label = matching.size() == 1 ? "Deadline" : "Deadlines";
-        if (start.equals(end)) {
-            System.out.println(label + " due on "
-                    + start.format(formatter).replace("Sep ", "Sept ") + ":");
+        showDueList(matching, start, end, false);
+    }
+
+    /**
+     * Prints deadlines due within a date range, optionally together with overlapping events.
+     *
+     * @param matching The task list of matching tasks.
+     * @param start The start date of the range.
+     * @param end The end date of the range.
+     * @param includesEvents Whether the matching tasks include events.
+     */
+    public void showDueList(TaskList matching, LocalDate start, LocalDate end, boolean includesEvents) {
+        String label;
+        if (includesEvents) {
+            label = "Deadlines and events";
         } else {
-            System.out.println(label + " due from "
-                    + start.format(formatter).replace("Sep ", "Sept ")
-                    + " to " + end.format(formatter).replace("Sep ", "Sept ") + ":");
+            label = matching.size() == 1 ? "Deadline" : "Deadlines";
         }
+        println(label + " due " + formatRange(start, end) + ":");
         if (matching.size() == 0) {
-            System.out.println("No matching deadlines found.");
+            println(includesEvents ? "No matching deadlines or events found."
+                    : "No matching deadlines found.");
         } else {
-            for (int i = 0; i < matching.size(); i++) {
-                System.out.println((i + 1) + "." + matching.get(i));
-            }
+            showNumberedTasks(matching);
         }
     }
 
+    /**
+     * Prints events overlapping a date range.
+     *
+     * @param matching The task list of matching events.
+     * @param start The start date of the range.
+     * @param end The end date of the range.
+     */
+    public void showEventList(TaskList matching, LocalDate start, LocalDate end) {
+        String label = matching.size() == 1 ? "Event" : "Events";
+        println(label + " happening " + formatRange(start, end) + ":");
+        if (matching.size() == 0) {
+            println("No matching events found.");
+        } else {
+            showNumberedTasks(matching);
+        }
+    }
+
+    private static String formatRange(LocalDate start, LocalDate end) {
+        if (start.equals(end)) {
+            return "on " + DisplayDates.format(start);
+        }
+        return "from " + DisplayDates.format(start) + " to " + DisplayDates.format(end);
+    }
+
     /**
      * Prints the results of a find command.
      *
@@ -180,16 +430,77 @@ public class Ui {
      */
     public void showFindResults(TaskList matching) {
         if (matching.size() == 0) {
-            System.out.println("No matching tasks found.");
+            println("No matching tasks found.");
         } else if (matching.size() == 1) {
-            System.out.println("Here is the matching task in your list:");
-            System.out.println("1." + matching.get(0));
+            println("Here is the matching task in your list:");
+            println("1." + matching.get(0));
         } else {
-            System.out.println("Here are the matching tasks in your list:");
-            for (int i = 0; i < matching.size(); i++) {
-                System.out.println((i + 1) + "." + matching.get(i));
-            }
+            println("Here are the matching tasks in your list:");
+            showNumberedTasks(matching);
+        }
+    }
+
+    /**
+     * Prints the results of a find command with options, best match first.
+     *
+     * @param matching The best matching tasks, as many as are shown.
+     * @param matchCount The number of matching tasks, including those not shown.
+     */
+    public void showRankedResults(List<Task> matching, int matchCount) {
+        if (matching.size() == 0) {
+            println("No matching tasks found.");
+        } else if (matching.size() == 1) {
+            println("Here is the matching task in your list:");
+            println("1." + matching.get(0));
+        } else {
+            println("Here are the matching tasks in your list, best match first:");
+            showNumberedTasks(matching);
         }
+        if (matchCount > matching.size()) {
+            println("Showing the best " + matching.size() + " of " + matchCount + " matches.");
+        }
+    }
+
+    /**
+     * Prints how a query runs.
+     *
+     * @param plan The description of the query plan.
+     */
+    public void showQueryPlan(String plan) {
+        println("Plan: " + plan + ".");
+    }
+
+    /**
+     * Prints the results of a query command.
+     *
+     * @param matching The task list of matching tasks.
+     */
+    public void showQueryResults(TaskList matching) {
+        if (matching.size() == 0) {
+            println("No tasks match your query.");
+        } else if (matching.size() == 1) {
+            println("Here is the task matching your query:");
+            println("1." + matching.get(0));
+        } else {
+            println("Here are the " + matching.size() + " tasks matching your query:");
+            showNumberedTasks(matching);
+        }
+    }
+
+    /**
+     * Prints the outcome of running a batch of commands.
+     *
+     * @param commandCount The number of commands that were run.
+     * @param errors One entry per failed command, naming its line and the problem.
+     */
+    public void showBatchSummary(int commandCount, List<String> errors) {
+        println(LINE);
+        println("Ran " + commandCount + " " + (commandCount == 1 ? "command" : "commands")
+                + ", " + errors.size() + " failed.");
+        for (String error : errors) {
+            println(error);
+        }
+        println(LINE);
     }
 
     /**
@@ -198,6 +509,17 @@ public class Ui {
      * @param message The message to print.
      */
     public void showMessage(String message) {
-        System.out.println(message);
+        println(message);
+    }
+
+    /**
+     * Prints messages to the user, one per line, such as those {@link Storage#takeMessages} returns.
+     *
+     * @param messages The messages to print.
+     */
+    public void showMessages(List<String> messages) {
+        for (String message : messages) {
+            println(message);
+        }
     }
 }
@@ -0,0 +1,407 @@
+package claude;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bounded history of changes to a task list that can be undone and redone.
+ * Each change is kept as a small operation that knows how to reverse itself, not as a copy
+ * of the list, so undoing and redoing take constant time and memory whatever the list size.
+ * Operations live in a ring buffer: once it is full, recording a change forgets the oldest one.
+ * Operations refer to tasks by position, so each one checks the IDs of the tasks it touches before
+ * applying, and a saved history is only read back for the exact list it was saved with.
+ */
+public class UndoLog {
+    /** The number of changes kept when no capacity is given. */
+    public static final int DEFAULT_CAPACITY = 100;
+
+    private static final String HEADER = "UNDO";
+    private static final String SEPARATOR = " | ";
+
+    private Operation[] operations;
+    private int start;
+    private int size;
+    private int cursor;
+
+    /**
+     * The kinds of change that can be undone.
+     */
+    public enum Type {
+        ADD, DELETE, MARK, UNMARK
+    }
+
+    /**
+     * A change to one or more tasks of the task list.
+     */
+    public static class Operation {
+        private Type type;
+        private int[] indices;
+        // Marks only need the indices, so their tasks are filled in when they are applied after a restart
+        private Task[] tasks;
+        // The IDs of the tasks, for marks read back before their tasks are filled in
+        private int[] ids;
+
+        /**
+         * Creates an operation on a single task.
+         *
+         * @param type The kind of change.
+         * @param index The zero-based index of the task that was changed.
+         * @param task The task that was changed.
+         */
+        public Operation(Type type, int index, Task task) {
+            this(type, new int[] {index}, new Task[] {task});
+        }
+
+        /**
+         * Creates an operation on several tasks, undone and redone as a whole.
+         *
+         * @param type The kind of change.
+         * @param indices The zero-based indices of the changed tasks in ascending order,
+         *     as they are after adding or before deleting.
+         * @param tasks The changed tasks, in the same order.
+         */
+        public Operation(Type type, int[] indices, Task[] tasks) {
+            this(type, indices, tasks, new int[indices.length]);
+            for (int i = 0; i < tasks.length; i++) {
+                ids[i] = tasks[i].getId();
+            }
+        }
+
+        private Operation(Type type, int[] indices, Task[] tasks, int[] ids) {
+            this.type = type;
+            this.indices = indices;
+            this.tasks = tasks;
+            this.ids = ids;
+        }
+
+        /**
+         * Returns the kind of change.
+         *
+         * @return The type of this operation.
+         */
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * Returns the tasks that were changed.
+         *
+         * @return The tasks, in list order.
+         */
+        public List<Task> getTasks() {
+            return Arrays.asList(tasks);
+        }
+
+        /**
+         * Returns a short description such as "delete task 3" or "mark 5 tasks".
+         *
+         * @return The description.
+         */
+        public String getSummary() {
+            String name = type.name().toLowerCase();
+            if (indices.length == 1) {
+                return name + " task " + (indices[0] + 1);
+            }
+            return name + " " + indices.length + " tasks";
+        }
+
+        private void apply(TaskList list, Storage storage, boolean isForward) throws ClaudeException {
+            boolean isInsert = (type == Type.ADD) == isForward;
+            boolean isSingle = indices.length == 1;
+            switch (type) {
+            case ADD:
+            case DELETE:
+                checkIndices(isInsert ? list.size() + indices.length : list.size());
+                if (isInsert) {
+                    checkAbsent(list);
+                    insert(list, storage);
+                    break;
+                }
+                checkIds(list);
+                if (isSingle) {
+                    list.delete(indices[0]);
+                    storage.recordDelete(list, indices[0]);
+                } else {
+                    list.deleteAll(indices);
+                    storage.recordAll(list);
+                }
+                break;
+            default:
+                checkIndices(list.size());
+                checkIds(list);
+                boolean isDone = (type == Type.MARK) == isForward;
+                for (int i = 0; i < indices.length; i++) {
+                    list.setDone(indices[i], isDone);
+                    tasks[i] = list.get(indices[i]);
+                }
+                if (isSingle) {
+                    storage.recordStatus(list, indices[0]);
+                } else {
+                    storage.recordAll(list);
+                }
+                break;
+            }
+        }
+
+        private void insert(TaskList list, Storage storage) throws ClaudeException {
+            try {
+                if (indices.length == 1) {
+                    list.insert(indices[0], tasks[0]);
+                    storage.recordInsert(list, indices[0]);
+                } else {
+                    list.insertAll(indices, Arrays.asList(tasks));
+                    storage.recordAll(list);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new ClaudeException("The history no longer matches the task list.");
+            }
+        }
+
+        private void checkIndices(int limit) throws ClaudeException {
+            for (int index : indices) {
+                if (index < 0 || index >= limit) {
+                    throw new ClaudeException("The history no longer matches the task list.");
+                }
+            }
+        }
+
+        private void checkIds(TaskList list) throws ClaudeException {
+            for (int i = 0; i < indices.length; i++) {
+                int id = tasks[i] != null ? tasks[i].getId() : ids[i];
+                if (list.get(indices[i]).getId() != id) {
+                    throw new ClaudeException("The history no longer matches the task list.");
+                }
+            }
+        }
+
+        private void checkAbsent(TaskList list) throws ClaudeException {
+            for (Task task : tasks) {
+                if (task.getId() != 0 && list.indexOfId(task.getId()) >= 0) {
+                    throw new ClaudeException("The history no longer matches the task list.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates an empty history keeping the default number of changes.
+     */
+    public UndoLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty history.
+     *
+     * @param capacity The maximum number of changes kept.
+     */
+    public UndoLog(int capacity) {
+        this.operations = new Operation[capacity];
+    }
+
+    /**
+     * Records a change that has just been made, forgetting any changes that were undone
+     * and the oldest change if the history is full.
+     *
+     * @param operation The change.
+     */
+    public void record(Operation operation) {
+        size = cursor;
+        if (size == operations.length) {
+            start = (start + 1) % operations.length;
+            size--;
+            cursor--;
+        }
+        operations[(start + size) % operations.length] = operation;
+        size++;
+        cursor++;
+    }
+
+    /**
+     * Reverses the most recent change that has not been undone yet.
+     *
+     * @param tasks The task list to change.
+     * @param storage The storage to persist the change.
+     * @return The change that was undone.
+     * @throws ClaudeException If there is nothing to undo.
+     */
+    public Operation undo(TaskList tasks, Storage storage) throws ClaudeException {
+        if (cursor == 0) {
+            throw new ClaudeException("There's nothing to undo.");
+        }
+        Operation operation = operations[(start + cursor - 1) % operations.length];
+        operation.apply(tasks, storage, false);
+        cursor--;
+        return operation;
+    }
+
+    /**
+     * Makes the most recently undone change again.
+     *
+     * @param tasks The task list to change.
+     * @param storage The storage to persist the change.
+     * @return The change that was redone.
+     * @throws ClaudeException If there is nothing to redo.
+     */
+    public Operation redo(TaskList tasks, Storage storage) throws ClaudeException {
+        if (cursor == size) {
+            throw new ClaudeException("There's nothing to redo.");
+        }
+        Operation operation = operations[(start + cursor) % operations.length];
+        operation.apply(tasks, storage, true);
+        cursor++;
+        return operation;
+    }
+
+    /**
+     * Returns the highest ID of the tasks that undoing or redoing could bring back.
+     *
+     * @return The highest ID, or 0 if there are none.
+     */
+    public int getMaxId() {
+        int maxId = 0;
+        for (int i = 0; i < size; i++) {
+            Operation operation = operations[(start + i) % operations.length];
+            if (operation.type == Type.ADD || operation.type == Type.DELETE) {
+                for (Task task : operation.tasks) {
+                    maxId = Math.max(maxId, task.getId());
+                }
+            }
+        }
+        return maxId;
+    }
+
+    /**
+     * Writes the history, tagged with the size and a fingerprint of the list it applies to.
+     *
+     * @param tasks The task list the history applies to.
+     * @param writer The writer to write to.
+     * @throws IOException If writing fails.
+     */
+    public void write(TaskList tasks, Writer writer) throws IOException {
+        writer.write(HEADER + SEPARATOR + tasks.size() + SEPARATOR + cursor + SEPARATOR
+                + Long.toHexString(fingerprint(tasks)) + System.lineSeparator());
+        for (int i = 0; i < size; i++) {
+            Operation operation = operations[(start + i) % operations.length];
+            StringBuilder line = new StringBuilder(operation.type.name()).append(SEPARATOR);
+            appendNumbers(line, operation.indices);
+            if (operation.type == Type.MARK || operation.type == Type.UNMARK) {
+                appendNumbers(line.append(SEPARATOR), operation.ids);
+            }
+            writer.write(line + System.lineSeparator());
+            if (operation.type == Type.ADD || operation.type == Type.DELETE) {
+                // One task per line, as task lines contain the field separator themselves
+                for (Task task : operation.tasks) {
+                    writer.write(Storage.formatTask(task) + System.lineSeparator());
+                }
+            }
+        }
+    }
+
+    private static void appendNumbers(StringBuilder line, int[] numbers) {
+        for (int i = 0; i < numbers.length; i++) {
+            line.append(i == 0 ? "" : ",").append(numbers[i]);
+        }
+    }
+
+    /**
+     * Returns a hash of the IDs, types, statuses and contents of the tasks, in list order,
+     * so a history no longer matches once the list was changed in a session that did not keep it.
+     */
+    private static long fingerprint(TaskList tasks) {
+        long hash = tasks.size();
+        for (Task task : tasks) {
+            hash = hash * 1_000_003 + Storage.formatTask(task).hashCode();
+        }
+        return hash;
+    }
+
+    /**
+     * Reads a history written by {@link #write}.
+     *
+     * @param reader The reader to read from.
+     * @param tasks The task list the history is for.
+     * @return The history, or null if it was written for a different list or version of it.
+     * @throws IOException If reading fails.
+     * @throws ClaudeException If the history is corrupted.
+     */
+    public static UndoLog read(BufferedReader reader, TaskList tasks) throws IOException, ClaudeException {
+        String[] header = split(reader.readLine(), 4);
+        if (header.length < 3 || !header[0].equals(HEADER)) {
+            throw new ClaudeException("Invalid undo history header");
+        }
+        if (header.length < 4 || parseNumber(header[1]) != tasks.size()
+                || !header[3].trim().equals(Long.toHexString(fingerprint(tasks)))) {
+            return null;
+        }
+        UndoLog log = new UndoLog();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] fields = split(line, 3);
+            Type type;
+            try {
+                type = Type.valueOf(fields[0]);
+            } catch (IllegalArgumentException e) {
+                throw new ClaudeException("Unknown undo operation: " + fields[0]);
+            }
+            int[] indices = parseNumbers(fields[1]);
+            if (type == Type.MARK || type == Type.UNMARK) {
+                int[] ids = fields.length < 3 ? new int[0] : parseNumbers(fields[2]);
+                if (ids.length != indices.length) {
+                    throw new ClaudeException("Invalid undo history record");
+                }
+                log.record(new Operation(type, indices, new Task[indices.length], ids));
+                continue;
+            }
+            Task[] changed = new Task[indices.length];
+            for (int i = 0; i < changed.length; i++) {
+                String taskLine = reader.readLine();
+                if (taskLine == null) {
+                    throw new ClaudeException("Truncated undo history");
+                }
+                changed[i] = Storage.parseTask(taskLine);
+            }
+            log.record(new Operation(type, indices, changed));
+        }
+        int cursor = parseNumber(header[2]);
+        if (cursor > log.size) {
+            throw new ClaudeException("Invalid undo history position");
+        }
+        log.cursor = cursor;
+        return log;
+    }
+
+    private static String[] split(String line, int limit) throws ClaudeException {
+        if (line == null) {
+            throw new ClaudeException("Truncated undo history");
+        }
+        String[] fields = line.split(" \\| ", limit);
+        if (fields.length < 2) {
+            throw new ClaudeException("Invalid undo history record");
+        }
+        return fields;
+    }
+
+    private static int[] parseNumbers(String value) throws ClaudeException {
+        String[] fields = value.split(",");
+        int[] numbers = new int[fields.length];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = parseNumber(fields[i]);
+        }
+        return numbers;
+    }
+
+    private static int parseNumber(String value) throws ClaudeException {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ClaudeException("Invalid number in undo history: " + value);
+        }
+    }
+}
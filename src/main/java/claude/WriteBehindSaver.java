@@ -0,0 +1,97 @@
+package claude;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Saves the task list on a background thread, so commands never wait for the disk.
+ * While it runs, commands only mark the storage dirty; every interval the saver copies the list,
+ * if it changed, and writes the copy out, so any number of changes in between cost one save.
+ * Whatever is left is saved when the saver is stopped, or when the process exits.
+ */
+public class WriteBehindSaver {
+    /** The time between saves when no interval is given. */
+    public static final long DEFAULT_INTERVAL_MILLIS = 1000;
+
+    private Storage storage;
+    private TaskList tasks;
+    private Lock lock;
+    private long intervalMillis;
+    private CountDownLatch stopSignal;
+    private Thread thread;
+    private Thread shutdownHook;
+
+    /**
+     * Creates a saver for the given task list.
+     *
+     * @param storage The storage to save to.
+     * @param tasks The task list to save.
+     * @param lock The lock held while the task list is changed, taken briefly to copy it.
+     * @param intervalMillis The time between saves, in milliseconds.
+     */
+    public WriteBehindSaver(Storage storage, TaskList tasks, Lock lock, long intervalMillis) {
+        this.storage = storage;
+        this.tasks = tasks;
+        this.lock = lock;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Starts saving in the background, holding back the saves commands would make themselves.
+     */
+    public void start() {
+        storage.setDeferred(true);
+        stopSignal = new CountDownLatch(1);
+        thread = new Thread(this::run, "claude-saver");
+        thread.setDaemon(true);
+        thread.start();
+        shutdownHook = new Thread(this::flushOnExit);
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    private void run() {
+        try {
+            while (!stopSignal.await(intervalMillis, TimeUnit.MILLISECONDS)) {
+                flush();
+            }
+        } catch (InterruptedException e) {
+            // Nothing is lost, as stopping or exiting saves whatever is left
+        }
+    }
+
+    /**
+     * Saves the task list now if it changed since the last save.
+     */
+    public void flush() {
+        storage.flush(tasks, lock);
+    }
+
+    // Nobody reads the Ui once the process is exiting, so problems with the last save go to the console
+    private void flushOnExit() {
+        flush();
+        for (String message : storage.takeMessages()) {
+            System.out.println(message);
+        }
+    }
+
+    /**
+     * Stops the background thread and saves whatever changes are left.
+     * Afterwards commands save their changes themselves again.
+     */
+    public void stop() {
+        stopSignal.countDown();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        storage.setDeferred(false);
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down, so the hook saves once more, which finds nothing to do
+        }
+    }
+}
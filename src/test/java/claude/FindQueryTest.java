@@ -0,0 +1,55 @@
+package claude;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FindQueryTest {
+    @TempDir
+    Path directory;
+
+    private String runFind(String arguments, String... descriptions) throws ClaudeException {
+        Storage storage = new Storage(directory.resolve("claude.txt").toString());
+        TaskList tasks = new TaskList();
+        for (String description : descriptions) {
+            tasks.add(new Todo(description));
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Ui ui = new Ui(new ByteArrayInputStream(new byte[0]), new PrintStream(output));
+        Parser.parseAndExecute("find " + arguments, tasks, ui, storage);
+        ui.flush();
+        storage.close();
+        return output.toString();
+    }
+
+    @Test
+    public void find_keywordStartingWithDashes_searchesLiterally() throws ClaudeException {
+        assertFalse(FindQuery.hasOptions("--verbose flag"));
+
+        String output = runFind("--verbose flag", "document the --verbose flag", "verbose flag");
+
+        assertTrue(output.contains("document the --verbose flag"));
+        assertFalse(output.contains("2.[T][ ] verbose flag"));
+    }
+
+    @Test
+    public void parse_keywordsAfterSeparator_keepTheirDashes() throws ClaudeException {
+        assertTrue(FindQuery.hasOptions("--ignore-case -- --verbose"));
+
+        FindQuery query = FindQuery.parse("--ignore-case -- --verbose --any");
+
+        assertTrue(query.ignoresCase());
+        assertFalse(query.matchesAny());
+        assertEquals(List.of("--verbose", "--any"), Arrays.asList(query.getKeywords()));
+    }
+}
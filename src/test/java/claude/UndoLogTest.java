@@ -0,0 +1,97 @@
+package claude;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class UndoLogTest {
+    @TempDir
+    Path directory;
+
+    private TaskList runSession(boolean isHistoryKept, String... commands) throws ClaudeException {
+        Storage storage = new Storage(directory.resolve("claude.txt").toString());
+        storage.setHistoryKept(isHistoryKept);
+        TaskList tasks = new TaskList(storage.load(), storage.getNextId());
+        storage.loadHistory(tasks);
+        Ui ui = new Ui(new ByteArrayInputStream(new byte[0]), new PrintStream(new ByteArrayOutputStream()));
+        for (String command : commands) {
+            Parser.parseAndExecute(command, tasks, ui, storage);
+        }
+        storage.saveHistory(tasks);
+        storage.close();
+        return tasks;
+    }
+
+    @Test
+    public void undo_afterRestart_restoresDeletedTask() throws ClaudeException {
+        runSession(true, "todo a", "todo b", "mark 2", "delete 1");
+
+        TaskList tasks = runSession(true, "undo", "undo");
+
+        assertEquals(2, tasks.size());
+        assertEquals("a", tasks.get(0).getDescription());
+        assertFalse(tasks.get(1).isDone());
+    }
+
+    @Test
+    public void undo_historyStaleAfterSessionWithoutIt_leavesTasksAlone() throws ClaudeException {
+        runSession(true, "todo a", "todo b", "delete 1");
+        // Same number of tasks as when the history was saved, but not the same tasks
+        runSession(false, "delete 1", "todo z");
+
+        TaskList tasks = runSession(true);
+
+        assertThrows(ClaudeException.class, () -> tasks.getHistory().undo(tasks, new Storage(
+                directory.resolve("other.txt").toString())));
+        assertEquals(1, tasks.size());
+        assertEquals("z", tasks.get(0).getDescription());
+    }
+
+    @Test
+    public void undo_taskAtIndexReplaced_refusesToDelete() throws ClaudeException {
+        Storage storage = new Storage(directory.resolve("claude.txt").toString());
+        TaskList tasks = new TaskList();
+        Task added = new Todo("a");
+        tasks.add(added);
+        tasks.getHistory().record(new UndoLog.Operation(UndoLog.Type.ADD, 0, added));
+        tasks.delete(0);
+        tasks.add(new Todo("z"));
+
+        assertThrows(ClaudeException.class, () -> tasks.getHistory().undo(tasks, storage));
+        assertEquals("z", tasks.get(0).getDescription());
+    }
+
+    @Test
+    public void undo_bulkDeleteOfMostTasks_restoresOrderAndIds() throws ClaudeException {
+        Storage storage = new Storage(directory.resolve("claude.txt").toString());
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 3000; i++) {
+            tasks.add(new Todo((i % 3 == 0 ? "keep " : "drop ") + i));
+        }
+        ArrayList<Task> before = tasks.getTasks();
+        Ui ui = new Ui(new ByteArrayInputStream(new byte[0]), new PrintStream(new ByteArrayOutputStream()));
+        // Deleting two thirds of the list compacts away the freed slots, so undo has to merge the tasks back
+        Parser.parseAndExecute("delete find drop", tasks, ui, storage);
+        assertEquals(1000, tasks.size());
+
+        tasks.getHistory().undo(tasks, storage);
+
+        assertEquals(before.size(), tasks.size());
+        for (int i = 0; i < before.size(); i++) {
+            assertSame(before.get(i), tasks.get(i));
+            assertEquals(i + 1, tasks.get(i).getId());
+            assertEquals(i, tasks.indexOfId(i + 1));
+        }
+        storage.close();
+    }
+}